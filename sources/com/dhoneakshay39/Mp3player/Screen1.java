@@ -17,6 +17,7 @@ import com.google.appinventor.components.runtime.Label;
 import com.google.appinventor.components.runtime.Player;
 import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.errors.YailRuntimeError;
+import com.google.appinventor.components.runtime.util.EnvironmentIndex;
 import com.google.appinventor.components.runtime.util.RetValManager;
 import com.google.appinventor.components.runtime.util.RuntimeErrorAlert;
 import com.google.youngandroid.runtime;
@@ -169,8 +170,10 @@ public class Screen1 extends Form implements Runnable {
     public LList events$Mnto$Mnregister;
     public LList form$Mndo$Mnafter$Mncreation;
     public Environment form$Mnenvironment;
+    public EnvironmentIndex form$Mnenvironment$Mnindex;
     public Symbol form$Mnname$Mnsymbol;
     public Environment global$Mnvar$Mnenvironment;
+    public EnvironmentIndex global$Mnvar$Mnenvironment$Mnindex;
     public LList global$Mnvars$Mnto$Mncreate;
     public final ModuleMethod is$Mnbound$Mnin$Mnform$Mnenvironment;
     public final ModuleMethod lookup$Mnhandler;
@@ -854,28 +857,43 @@ public class Screen1 extends Form implements Runnable {
 
     public void addToFormEnvironment(Symbol name, Object object) {
         androidLogForm(Format.formatToString(0, "Adding ~A to env ~A with value ~A", name, this.form$Mnenvironment, object));
-        this.form$Mnenvironment.put(name, object);
+        formEnvironmentIndex().put(name, object);
     }
 
     public Object lookupInFormEnvironment(Symbol name, Object default$Mnvalue) {
-        boolean x = ((this.form$Mnenvironment == null ? 1 : 0) + 1) & 1;
-        if (x) {
-            if (!this.form$Mnenvironment.isBound(name)) {
-                return default$Mnvalue;
-            }
-        } else if (!x) {
+        if (this.form$Mnenvironment == null) {
             return default$Mnvalue;
         }
-        return this.form$Mnenvironment.get(name);
+        return formEnvironmentIndex().get(name, default$Mnvalue);
     }
 
     public boolean isBoundInFormEnvironment(Symbol name) {
-        return this.form$Mnenvironment.isBound(name);
+        return formEnvironmentIndex().isBound(name);
     }
 
     public void addToGlobalVarEnvironment(Symbol name, Object object) {
         androidLogForm(Format.formatToString(0, "Adding ~A to env ~A with value ~A", name, this.global$Mnvar$Mnenvironment, object));
-        this.global$Mnvar$Mnenvironment.put(name, object);
+        globalVarEnvironmentIndex().put(name, object);
+    }
+
+    private EnvironmentIndex formEnvironmentIndex() {
+        EnvironmentIndex index = this.form$Mnenvironment$Mnindex;
+        if (index != null && index.getEnvironment() == this.form$Mnenvironment) {
+            return index;
+        }
+        index = new EnvironmentIndex(this.form$Mnenvironment);
+        this.form$Mnenvironment$Mnindex = index;
+        return index;
+    }
+
+    private EnvironmentIndex globalVarEnvironmentIndex() {
+        EnvironmentIndex index = this.global$Mnvar$Mnenvironment$Mnindex;
+        if (index != null && index.getEnvironment() == this.global$Mnvar$Mnenvironment) {
+            return index;
+        }
+        index = new EnvironmentIndex(this.global$Mnvar$Mnenvironment);
+        this.global$Mnvar$Mnenvironment$Mnindex = index;
+        return index;
     }
 
     public void addToEvents(Object component$Mnname, Object event$Mnname) {
@@ -55,7 +55,7 @@ public final class BluetoothServer extends BluetoothConnectionBase {
                         bluetoothServerSocket = BluetoothReflection.listenUsingInsecureRfcommWithServiceRecord(bluetoothAdapter, name, uuid);
                     }
                     this.arBluetoothServerSocket.set(bluetoothServerSocket);
-                    AsynchUtil.runAsynchronously(new Runnable() {
+                    AsynchUtil.runOnNewThread(new Runnable() {
 
                         /* renamed from: com.google.appinventor.components.runtime.BluetoothServer$1$1 */
                         class C02631 implements Runnable {
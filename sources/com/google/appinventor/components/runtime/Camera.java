@@ -10,6 +10,7 @@ import android.os.Environment;
 import android.provider.MediaStore.Images.Media;
 import android.util.Log;
 import com.google.appinventor.components.annotations.DesignerComponent;
+import com.google.appinventor.components.annotations.DesignerProperty;
 import com.google.appinventor.components.annotations.PropertyCategory;
 import com.google.appinventor.components.annotations.SimpleEvent;
 import com.google.appinventor.components.annotations.SimpleFunction;
@@ -17,27 +18,34 @@ import com.google.appinventor.components.annotations.SimpleObject;
 import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.annotations.UsesPermissions;
 import com.google.appinventor.components.common.ComponentCategory;
+import com.google.appinventor.components.runtime.errors.PermissionException;
+import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
+import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.NougatUtil;
+import com.google.appinventor.components.runtime.util.RuntimeExecutor;
 import io.fabric.sdk.android.services.settings.SettingsJsonConstants;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
 
 @SimpleObject
-@DesignerComponent(category = ComponentCategory.MEDIA, description = "A component to take a picture using the device's camera. After the picture is taken, the name of the file on the phone containing the picture is available as an argument to the AfterPicture event. The file name can be used, for example, to set the Picture property of an Image component.", docUri = "image/camera", iconName = "images/camera.png", nonVisible = true, version = 3)
+@DesignerComponent(category = ComponentCategory.MEDIA, description = "A component to take a picture using the device's camera. After the picture is taken, the name of the file on the phone containing the picture is available as an argument to the AfterPicture event. The file name can be used, for example, to set the Picture property of an Image component.", docUri = "image/camera", iconName = "images/camera.png", nonVisible = true, version = 4)
 @UsesPermissions(permissionNames = "android.permission.WRITE_EXTERNAL_STORAGE, android.permission.READ_EXTERNAL_STORAGE, android.permission.CAMERA, android.permission.FLASHLIGHT")
 public class Camera extends AndroidNonvisibleComponent implements ActivityResultListener, Component {
     private static final String CAMERA_INTENT = "android.media.action.IMAGE_CAPTURE";
     private static final String CAMERA_OUTPUT = "output";
     private android.hardware.Camera cam = null;
+    private boolean captureToMemory = false;
     private final ComponentContainer container;
     private final Activity context;
     private boolean hasFlash = true;
     private boolean havePermission = false;
     private Uri imageFile;
     private boolean lightOn = false;
+    private int memoryPictureMaxBytes = 262144;
     private int requestCode;
+    private boolean savePictureFile = true;
     private boolean useFront;
 
     public Camera(ComponentContainer container) {
@@ -61,6 +69,39 @@ public class Camera extends AndroidNonvisibleComponent implements ActivityResult
         this.useFront = front;
     }
 
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If true, the picture is downscaled and kept in memory as a JPEG of at most MemoryPictureMaxBytes, and AfterPicture reports a memory:// path for it. Components such as Image and EmotionRecognizer read that path without going back to storage. Memory pictures are released when newer ones need the space.")
+    public boolean CaptureToMemory() {
+        return this.captureToMemory;
+    }
+
+    @DesignerProperty(defaultValue = "False", editorType = "boolean")
+    @SimpleProperty
+    public void CaptureToMemory(boolean toMemory) {
+        this.captureToMemory = toMemory;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The largest size in bytes of a picture kept in memory when CaptureToMemory is true.")
+    public int MemoryPictureMaxBytes() {
+        return this.memoryPictureMaxBytes;
+    }
+
+    @DesignerProperty(defaultValue = "262144", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void MemoryPictureMaxBytes(int bytes) {
+        this.memoryPictureMaxBytes = bytes;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If false and CaptureToMemory is true, the full-size picture file written by the camera is deleted in the background once the memory copy is made.")
+    public boolean SavePictureFile() {
+        return this.savePictureFile;
+    }
+
+    @DesignerProperty(defaultValue = "True", editorType = "boolean")
+    @SimpleProperty
+    public void SavePictureFile(boolean save) {
+        this.savePictureFile = save;
+    }
+
     @SimpleFunction
     public void TakePicture() {
         Date date = new Date();
@@ -117,6 +158,10 @@ public class Camera extends AndroidNonvisibleComponent implements ActivityResult
         if (requestCode == this.requestCode && resultCode == -1) {
             File image = new File(this.imageFile.getPath());
             if (image.length() != 0) {
+                if (this.captureToMemory && this.memoryPictureMaxBytes > 0) {
+                    captureToMemory(image, this.imageFile);
+                    return;
+                }
                 scanFileToAdd(image);
                 AfterPicture(this.imageFile.toString());
                 return;
@@ -135,6 +180,38 @@ public class Camera extends AndroidNonvisibleComponent implements ActivityResult
         deleteFile(this.imageFile);
     }
 
+    private void captureToMemory(final File image, final Uri imageUri) {
+        final int maxBytes = this.memoryPictureMaxBytes;
+        final boolean keepFile = this.savePictureFile;
+        AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_VISIBLE, new Runnable() {
+            public void run() {
+                try {
+                    final String memoryPath = MediaUtil.putMemoryMedia(imageUri.getLastPathSegment(), MediaUtil.getCompressedJpeg(Camera.this.form, image.getAbsolutePath(), maxBytes));
+                    Camera.this.form.runOnUiThread(new Runnable() {
+                        public void run() {
+                            Camera.this.AfterPicture(memoryPath);
+                        }
+                    });
+                    if (keepFile) {
+                        Camera.this.scanFileToAdd(image);
+                    } else {
+                        Camera.this.deleteFile(imageUri);
+                    }
+                } catch (PermissionException e) {
+                    Camera.this.form.dispatchPermissionDeniedEvent((Component) Camera.this, "TakePicture", e);
+                } catch (IOException e2) {
+                    Log.w("CameraComponent", "Unable to keep picture in memory, reporting the file instead", e2);
+                    Camera.this.scanFileToAdd(image);
+                    Camera.this.form.runOnUiThread(new Runnable() {
+                        public void run() {
+                            Camera.this.AfterPicture(imageUri.toString());
+                        }
+                    });
+                }
+            }
+        });
+    }
+
     private void scanFileToAdd(File image) {
         Intent mediaScanIntent = new Intent("android.intent.action.MEDIA_SCANNER_SCAN_FILE");
         mediaScanIntent.setData(NougatUtil.getPackageUri(this.form, image));
@@ -14,22 +14,23 @@ import com.google.appinventor.components.common.ComponentCategory;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil.FileException;
+import com.google.appinventor.components.runtime.util.HttpEmotionBackend;
+import com.google.appinventor.components.runtime.util.IEmotionBackend;
+import com.google.appinventor.components.runtime.util.IEmotionBackend.Result;
+import com.google.appinventor.components.runtime.util.LocalEmotionBackend;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.MobileAnalytics;
-import java.io.BufferedInputStream;
+import com.google.appinventor.components.runtime.util.RuntimeExecutor;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+import java.util.HashMap;
 import java.util.Iterator;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-@DesignerComponent(category = ComponentCategory.ARTIFICIALINTELLIGENCE, description = "Non-visible component that provides access to the Microsoft Emotion API. Please refer to the <a href=\"https://www.microsoft.com/cognitive-services/\">Microsoft Cognitive Services</a> for more information.", docUri = "image/microsoft-image-recognizer", iconName = "images/MicrosoftEmotionRecognizer.png", nonVisible = true, version = 1)
+import java.util.LinkedHashMap;
+
+@DesignerComponent(category = ComponentCategory.ARTIFICIALINTELLIGENCE, description = "Non-visible component that provides access to the Microsoft Emotion API. Please refer to the <a href=\"https://www.microsoft.com/cognitive-services/\">Microsoft Cognitive Services</a> for more information.", docUri = "image/microsoft-image-recognizer", iconName = "images/MicrosoftEmotionRecognizer.png", nonVisible = true, version = 4)
 @UsesLibraries(libraries = "httpcore-4.3.2.jar,httpmime-4.3.4.jar")
 @SimpleObject
 @UsesPermissions(permissionNames = "android.permission.INTERNET")
@@ -38,8 +39,26 @@ public class EmotionRecognizer extends AndroidNonvisibleComponent implements Com
     protected Activity activity;
     protected String defaultMicrosoftEmotionAPIUrl = "https://westus.api.cognitive.microsoft.com/face/v1.0/detect?returnFaceAttributes=emotion";
     protected String defaultSubscriptionKey = "7b15c5a74f6d4c70b1761fd274d7e524";
+    private final HashMap<String, Integer> inFlightRequests = new HashMap();
+    private final LocalEmotionBackend localBackend = new LocalEmotionBackend();
+    protected String localModel = "";
     protected String microsoftEmotionAPIUrl = "";
+    private final LinkedHashMap<String, Response> responseCache = new LinkedHashMap(16, 0.75f, true);
+    protected int resultCacheSize = 16;
+    protected int resultCacheTimeToLive = 600;
     protected String subscriptionKey = "";
+    protected int uploadByteBudget = 0;
+    private boolean useLocalModel = false;
+
+    private static class Response {
+        final long expiresAt;
+        final Result result;
+
+        Response(Result result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
 
     public EmotionRecognizer(ComponentContainer container) {
         super(container.$form());
@@ -69,9 +88,149 @@ public class EmotionRecognizer extends AndroidNonvisibleComponent implements Com
         return this.microsoftEmotionAPIUrl;
     }
 
+    @DesignerProperty(defaultValue = "0", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void UploadByteBudget(int bytes) {
+        if (bytes < 0) {
+            bytes = 0;
+        }
+        this.uploadByteBudget = bytes;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If greater than 0, images are downscaled and recompressed as JPEG on the device until they fit in this many bytes before they are sent. If 0, the image file is streamed to the server unchanged.")
+    public int UploadByteBudget() {
+        return this.uploadByteBudget;
+    }
+
+    @DesignerProperty(defaultValue = "16", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void ResultCacheSize(int size) {
+        if (size < 0) {
+            size = 0;
+        }
+        synchronized (this.responseCache) {
+            this.resultCacheSize = size;
+            trimResponseCache();
+        }
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of recognition results remembered for images that were already sent. Posting an identical image again reports the remembered result without contacting the server. Set to 0 to disable the cache.")
+    public int ResultCacheSize() {
+        return this.resultCacheSize;
+    }
+
+    @DesignerProperty(defaultValue = "600", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void ResultCacheTimeToLive(int seconds) {
+        if (seconds < 0) {
+            seconds = 0;
+        }
+        this.resultCacheTimeToLive = seconds;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of seconds a remembered recognition result stays valid.")
+    public int ResultCacheTimeToLive() {
+        return this.resultCacheTimeToLive;
+    }
+
+    @SimpleFunction(description = "Forgets all remembered recognition results.")
+    public void ClearResultCache() {
+        synchronized (this.responseCache) {
+            this.responseCache.clear();
+        }
+    }
+
+    private void trimResponseCache() {
+        Iterator<String> iterator = this.responseCache.keySet().iterator();
+        while (this.responseCache.size() > this.resultCacheSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private Response getCachedResponse(String key) {
+        Response response;
+        synchronized (this.responseCache) {
+            response = (Response) this.responseCache.get(key);
+            if (response != null && response.expiresAt <= System.currentTimeMillis()) {
+                this.responseCache.remove(key);
+                response = null;
+            }
+        }
+        return response;
+    }
+
+    private void cacheResponse(String key, Response response) {
+        synchronized (this.responseCache) {
+            if (this.resultCacheSize > 0) {
+                this.responseCache.put(key, response);
+                trimResponseCache();
+            }
+        }
+    }
+
+    private String requestKey(IEmotionBackend backend, String picPath) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA1");
+            InputStream in = MediaUtil.openMedia(this.form, picPath);
+            try {
+                byte[] buffer = new byte[8192];
+                while (true) {
+                    int read = in.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    digest.update(buffer, 0, read);
+                }
+                byte[] result = digest.digest();
+                StringBuffer sb = new StringBuffer(result.length * 2);
+                Formatter formatter = new Formatter(sb);
+                for (byte b : result) {
+                    formatter.format("%02x", new Object[]{Byte.valueOf(b)});
+                }
+                sb.append('|').append(backend.getConfigurationKey());
+                return sb.toString();
+            } finally {
+                in.close();
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unable to hash image " + picPath + ".");
+        }
+    }
+
+    @DesignerProperty(defaultValue = "", editorType = "asset")
+    @SimpleProperty
+    public void LocalModel(String path) {
+        if (path == null) {
+            path = "";
+        }
+        this.localModel = path;
+        this.localBackend.setModelPath(path);
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "An emotion model file to run on the device. When set, pictures are recognized locally with this model instead of being sent to serverUrl. GotResponse reports the same kind of response content as the Microsoft Emotion API.")
+    public String LocalModel() {
+        return this.localModel;
+    }
+
+    public void setLocalModel(LocalEmotionBackend.Model model) {
+        this.localModel = "";
+        this.localBackend.setModel(model);
+        this.useLocalModel = model != null;
+    }
+
+    protected IEmotionBackend getBackend() {
+        if (this.useLocalModel || this.localModel.length() > 0) {
+            return this.localBackend;
+        }
+        String url = (serverUrl().equals("") || serverUrl().equals("DEFAULT")) ? this.defaultMicrosoftEmotionAPIUrl : this.microsoftEmotionAPIUrl;
+        String key = (subscriptionKey().equals("") || subscriptionKey().equals("DEFAULT")) ? this.defaultSubscriptionKey : this.subscriptionKey;
+        return new HttpEmotionBackend(url, key, this.uploadByteBudget);
+    }
+
     @SimpleFunction(description = "Performs an HTTP POST request using the Url property.")
     public void postImage(final String path) {
-        AsynchUtil.runAsynchronously(new Runnable() {
+        AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_BACKGROUND, new Runnable() {
             public void run() {
                 try {
                     EmotionRecognizer.this.postImageFile(path);
@@ -85,67 +244,56 @@ public class EmotionRecognizer extends AndroidNonvisibleComponent implements Com
     }
 
     protected void postImageFile(String picPath) throws IOException {
-        HttpPost httpPost;
-        HttpClient httpclient = new DefaultHttpClient();
         if (picPath == null) {
             picPath = "";
         }
-        if (serverUrl().equals("") || serverUrl().equals("DEFAULT")) {
-            httpPost = new HttpPost(this.defaultMicrosoftEmotionAPIUrl);
-        } else {
-            httpPost = new HttpPost(this.microsoftEmotionAPIUrl);
-        }
-        if (subscriptionKey().equals("") || subscriptionKey().equals("DEFAULT")) {
-            httpPost = request;
-            httpPost.setHeader("Ocp-Apim-Subscription-Key", this.defaultSubscriptionKey);
-        } else {
-            httpPost = request;
-            httpPost.setHeader("Ocp-Apim-Subscription-Key", this.subscriptionKey);
-        }
-        BufferedInputStream bufferedInputStream = new BufferedInputStream(MediaUtil.openMedia(this.form, picPath));
-        byte[] data = new byte[bufferedInputStream.available()];
-        bufferedInputStream.read(data);
-        bufferedInputStream.close();
-        ByteArrayEntity bae = new ByteArrayEntity(data);
-        bae.setContentType("application/octet-stream");
-        request.setEntity(bae);
-        HttpResponse response = httpclient.execute(request);
-        final String responseContent = EntityUtils.toString(response.getEntity());
-        final int responseCode = response.getStatusLine().getStatusCode();
-        String currentMostLikelyEmotion = "There is something wrong.";
-        double currentMostLikelyEmotionScore = 0.0d;
-        if (responseCode == 200) {
-            try {
-                JSONArray jSONArray = new JSONArray(responseContent);
-                if (jSONArray.length() != 1) {
-                    currentMostLikelyEmotion = "There are no face or more than one face in the picture. Please check the response content.";
+        IEmotionBackend backend = getBackend();
+        String key = requestKey(backend, picPath);
+        Response response = getCachedResponse(key);
+        if (response != null) {
+            dispatchResponse(response);
+            return;
+        }
+        synchronized (this.inFlightRequests) {
+            Integer waiting = (Integer) this.inFlightRequests.get(key);
+            if (waiting != null) {
+                this.inFlightRequests.put(key, Integer.valueOf(waiting.intValue() + 1));
+                return;
+            }
+            response = getCachedResponse(key);
+            if (response == null) {
+                this.inFlightRequests.put(key, Integer.valueOf(0));
+            }
+        }
+        if (response != null) {
+            dispatchResponse(response);
+            return;
+        }
+        int waiters;
+        try {
+            response = new Response(backend.recognize(this.form, picPath), System.currentTimeMillis() + (((long) this.resultCacheTimeToLive) * 1000));
+            if (response.result.responseCode == 200) {
+                cacheResponse(key, response);
+            }
+            dispatchResponse(response);
+        } finally {
+            synchronized (this.inFlightRequests) {
+                waiters = ((Integer) this.inFlightRequests.remove(key)).intValue();
+            }
+            for (int i = 0; i < waiters; i++) {
+                if (response != null) {
+                    dispatchResponse(response);
                 } else {
-                    JSONObject face = jSONArray.getJSONObject(0);
-                    if (face.has("faceAttributes")) {
-                        if (face.getJSONObject("faceAttributes").has("emotion")) {
-                            JSONObject emotions = face.getJSONObject("faceAttributes").getJSONObject("emotion");
-                            Iterator<String> emotionIterator = emotions.keys();
-                            while (emotionIterator.hasNext()) {
-                                String emotion = (String) emotionIterator.next();
-                                double score = emotions.getDouble(emotion);
-                                if (score > currentMostLikelyEmotionScore) {
-                                    currentMostLikelyEmotion = emotion;
-                                    currentMostLikelyEmotionScore = score;
-                                }
-                            }
-                        }
-                    }
-                    currentMostLikelyEmotion = "Emotion info is not included in response content";
+                    this.form.dispatchErrorOccurredEvent(this, "PostFile", ErrorMessages.ERROR_WEB_UNABLE_TO_POST_OR_PUT_FILE, picPath, serverUrl());
                 }
-            } catch (JSONException e) {
-                currentMostLikelyEmotion = "There is something wrong. " + e.toString();
             }
         }
-        final String mostLikelyEmotion = currentMostLikelyEmotion;
-        final double mostLikelyEmotionScore = currentMostLikelyEmotionScore;
+    }
+
+    private void dispatchResponse(final Response response) {
         this.activity.runOnUiThread(new Runnable() {
             public void run() {
-                EmotionRecognizer.this.GotResponse(responseCode, responseContent, mostLikelyEmotion, mostLikelyEmotionScore);
+                EmotionRecognizer.this.GotResponse(response.result.responseCode, response.result.responseContent, response.result.mostLikelyEmotion, response.result.mostLikelyEmotionScore);
             }
         });
     }
@@ -1,12 +1,18 @@
 package com.google.appinventor.components.runtime;
 
+import com.google.appinventor.components.runtime.util.EventMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 public class EventDispatcher {
     private static final boolean DEBUG = false;
+    private static final EventClosure NO_HANDLER = new EventClosure("", "");
+    private static final Object[] NO_ARGS = new Object[0];
     private static final Map<HandlesEventDispatching, EventRegistry> mapDispatchDelegateToEventRegistry = new HashMap();
 
     private static final class EventClosure {
@@ -43,10 +49,36 @@ public class EventDispatcher {
     private static final class EventRegistry {
         private final HandlesEventDispatching dispatchDelegate;
         private final HashMap<String, Set<EventClosure>> eventClosuresMap = new HashMap();
+        private final WeakHashMap<Component, HashMap<String, EventClosure>> resolvedClosures = new WeakHashMap();
 
         EventRegistry(HandlesEventDispatching dispatchDelegate) {
             this.dispatchDelegate = dispatchDelegate;
         }
+
+        /* access modifiers changed from: 0000 */
+        public EventClosure getResolvedClosure(Component component, String eventName) {
+            HashMap<String, EventClosure> closures = (HashMap) this.resolvedClosures.get(component);
+            if (closures == null) {
+                return null;
+            }
+            return (EventClosure) closures.get(eventName);
+        }
+
+        /* access modifiers changed from: 0000 */
+        public void putResolvedClosure(Component component, String eventName, EventClosure eventClosure) {
+            HashMap<String, EventClosure> closures = (HashMap) this.resolvedClosures.get(component);
+            if (closures == null) {
+                closures = new HashMap();
+                this.resolvedClosures.put(component, closures);
+            }
+            closures.put(eventName, eventClosure);
+        }
+
+        /* access modifiers changed from: 0000 */
+        public void clear() {
+            this.eventClosuresMap.clear();
+            this.resolvedClosures.clear();
+        }
     }
 
     private EventDispatcher() {
@@ -74,10 +106,13 @@ public class EventDispatcher {
             er.eventClosuresMap.put(eventName, eventClosures);
         }
         eventClosures.add(new EventClosure(componentId, eventName));
+        er.resolvedClosures.clear();
     }
 
     public static void unregisterEventForDelegation(HandlesEventDispatching dispatchDelegate, String componentId, String eventName) {
-        Set<EventClosure> eventClosures = (Set) getEventRegistry(dispatchDelegate).eventClosuresMap.get(eventName);
+        EventRegistry er = getEventRegistry(dispatchDelegate);
+        er.resolvedClosures.clear();
+        Set<EventClosure> eventClosures = (Set) er.eventClosuresMap.get(eventName);
         if (eventClosures != null && !eventClosures.isEmpty()) {
             Set<EventClosure> toDelete = new HashSet();
             for (EventClosure eventClosure : eventClosures) {
@@ -93,36 +128,120 @@ public class EventDispatcher {
 
     public static void unregisterAllEventsForDelegation() {
         for (EventRegistry er : mapDispatchDelegateToEventRegistry.values()) {
-            er.eventClosuresMap.clear();
+            er.clear();
         }
     }
 
     public static void removeDispatchDelegate(HandlesEventDispatching dispatchDelegate) {
         EventRegistry er = removeEventRegistry(dispatchDelegate);
         if (er != null) {
-            er.eventClosuresMap.clear();
+            er.clear();
+        }
+    }
+
+    public static void forgetResolvedHandlers(Component component) {
+        EventRegistry er = (EventRegistry) mapDispatchDelegateToEventRegistry.get(component.getDispatchDelegate());
+        if (er != null) {
+            er.resolvedClosures.remove(component);
+        }
+    }
+
+    public static boolean dispatchEvent(Component component, String eventName) {
+        EventRegistry er = getDispatchableEventRegistry(component, eventName);
+        if (er == null) {
+            return false;
+        }
+        return delegateDispatchEvent(er, component, eventName, NO_ARGS);
+    }
+
+    public static boolean dispatchEvent(Component component, String eventName, Object arg0) {
+        EventRegistry er = getDispatchableEventRegistry(component, eventName);
+        if (er == null) {
+            return false;
+        }
+        return delegateDispatchEvent(er, component, eventName, new Object[]{arg0});
+    }
+
+    public static boolean dispatchEvent(Component component, String eventName, Object arg0, Object arg1) {
+        EventRegistry er = getDispatchableEventRegistry(component, eventName);
+        if (er == null) {
+            return false;
         }
+        return delegateDispatchEvent(er, component, eventName, new Object[]{arg0, arg1});
+    }
+
+    public static boolean dispatchEvent(Component component, String eventName, Object arg0, Object arg1, Object arg2) {
+        EventRegistry er = getDispatchableEventRegistry(component, eventName);
+        if (er == null) {
+            return false;
+        }
+        return delegateDispatchEvent(er, component, eventName, new Object[]{arg0, arg1, arg2});
+    }
+
+    public static boolean dispatchEvent(Component component, String eventName, Object arg0, Object arg1, Object arg2, Object arg3) {
+        EventRegistry er = getDispatchableEventRegistry(component, eventName);
+        if (er == null) {
+            return false;
+        }
+        return delegateDispatchEvent(er, component, eventName, new Object[]{arg0, arg1, arg2, arg3});
     }
 
     public static boolean dispatchEvent(Component component, String eventName, Object... args) {
+        EventRegistry er = getDispatchableEventRegistry(component, eventName);
+        if (er == null) {
+            return false;
+        }
+        return delegateDispatchEvent(er, component, eventName, args == null ? NO_ARGS : args);
+    }
+
+    private static EventRegistry getDispatchableEventRegistry(Component component, String eventName) {
         HandlesEventDispatching dispatchDelegate = component.getDispatchDelegate();
         if (!dispatchDelegate.canDispatchEvent(component, eventName)) {
-            return false;
+            return null;
         }
-        Set<EventClosure> eventClosures = (Set) getEventRegistry(dispatchDelegate).eventClosuresMap.get(eventName);
-        if (eventClosures == null || eventClosures.size() <= 0) {
-            return false;
+        EventRegistry er = getEventRegistry(dispatchDelegate);
+        Set<EventClosure> eventClosures = (Set) er.eventClosuresMap.get(eventName);
+        if (eventClosures == null || eventClosures.size() <= 0 || er.getResolvedClosure(component, eventName) == NO_HANDLER) {
+            return null;
         }
-        return delegateDispatchEvent(dispatchDelegate, eventClosures, component, args);
+        return er;
     }
 
-    private static boolean delegateDispatchEvent(HandlesEventDispatching dispatchDelegate, Set<EventClosure> eventClosures, Component component, Object... args) {
+    private static boolean delegateDispatchEvent(EventRegistry er, Component component, String eventName, Object[] args) {
+        EventClosure resolved = er.getResolvedClosure(component, eventName);
+        if (resolved == NO_HANDLER) {
+            return false;
+        }
+        if (resolved != null) {
+            return invokeDelegate(er.dispatchDelegate, component, resolved, args);
+        }
         boolean dispatched = false;
-        for (EventClosure eventClosure : eventClosures) {
-            if (dispatchDelegate.dispatchEvent(component, eventClosure.componentId, eventClosure.eventName, args)) {
+        EventClosure handler = null;
+        int handlers = 0;
+        for (EventClosure eventClosure : new ArrayList((Collection) er.eventClosuresMap.get(eventName))) {
+            if (invokeDelegate(er.dispatchDelegate, component, eventClosure, args)) {
                 dispatched = true;
+                handler = eventClosure;
+                handlers++;
             }
         }
+        if (handlers == 0 && er.eventClosuresMap.containsKey(eventName)) {
+            er.putResolvedClosure(component, eventName, NO_HANDLER);
+        } else if (handlers == 1 && er.eventClosuresMap.containsKey(eventName) && ((Set) er.eventClosuresMap.get(eventName)).contains(handler)) {
+            er.putResolvedClosure(component, eventName, handler);
+        }
+        return dispatched;
+    }
+
+    private static boolean invokeDelegate(HandlesEventDispatching dispatchDelegate, Component component, EventClosure eventClosure, Object[] args) {
+        if (!EventMetrics.isEnabled()) {
+            return dispatchDelegate.dispatchEvent(component, eventClosure.componentId, eventClosure.eventName, args);
+        }
+        long start = System.nanoTime();
+        boolean dispatched = dispatchDelegate.dispatchEvent(component, eventClosure.componentId, eventClosure.eventName, args);
+        if (dispatched) {
+            EventMetrics.record(eventClosure.componentId, eventClosure.eventName, System.nanoTime() - start);
+        }
         return dispatched;
     }
 
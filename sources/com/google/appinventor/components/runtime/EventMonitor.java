@@ -0,0 +1,82 @@
+package com.google.appinventor.components.runtime;
+
+import com.google.appinventor.components.annotations.DesignerComponent;
+import com.google.appinventor.components.annotations.DesignerProperty;
+import com.google.appinventor.components.annotations.PropertyCategory;
+import com.google.appinventor.components.annotations.SimpleFunction;
+import com.google.appinventor.components.annotations.SimpleObject;
+import com.google.appinventor.components.annotations.SimpleProperty;
+import com.google.appinventor.components.common.ComponentCategory;
+import com.google.appinventor.components.runtime.util.EventMetrics;
+import com.google.appinventor.components.runtime.util.EventMetrics.Stats;
+import com.google.appinventor.components.runtime.util.RuntimeExecutor;
+import com.google.appinventor.components.runtime.util.YailList;
+import java.util.ArrayList;
+import java.util.List;
+
+@SimpleObject
+@DesignerComponent(category = ComponentCategory.EXPERIMENTAL, description = "<p>Non-visible component that measures how often event handlers run and how long they take. When Enabled, every handled event records its invocation count, its median and 99th percentile handler latency, and the time spent on the UI thread. It also reports the depth of the background task queue and how long background tasks wait for a worker. The same figures are available from the companion at /_metrics.</p>", iconName = "images/clock.png", nonVisible = true, version = 2)
+public final class EventMonitor extends AndroidNonvisibleComponent implements Component {
+    public EventMonitor(ComponentContainer container) {
+        super(container.$form());
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "Whether event handler timings are being recorded.")
+    public boolean Enabled() {
+        return EventMetrics.isEnabled();
+    }
+
+    @DesignerProperty(defaultValue = "False", editorType = "boolean")
+    @SimpleProperty
+    public void Enabled(boolean enabled) {
+        EventMetrics.setEnabled(enabled);
+    }
+
+    @SimpleFunction(description = "Returns the number of times the handler for the given component and event has run.")
+    public long InvocationCount(String componentName, String eventName) {
+        Stats stats = EventMetrics.getStats(componentName, eventName);
+        return stats == null ? 0 : stats.getCount();
+    }
+
+    @SimpleFunction(description = "Returns the handler latency in milliseconds at the given percentile (for example 50 or 99) over the most recent invocations of the given component and event.")
+    public double Latency(String componentName, String eventName, double percentile) {
+        Stats stats = EventMetrics.getStats(componentName, eventName);
+        return stats == null ? 0.0d : stats.getPercentileMillis(percentile);
+    }
+
+    @SimpleFunction(description = "Returns the total time in milliseconds the handler for the given component and event has spent on the UI thread.")
+    public double UiThreadTime(String componentName, String eventName) {
+        Stats stats = EventMetrics.getStats(componentName, eventName);
+        return stats == null ? 0.0d : stats.getUiThreadMillis();
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of background tasks, such as web requests and image loads, that are waiting for a worker thread.")
+    public int BackgroundQueueDepth() {
+        return RuntimeExecutor.getInstance().getQueueDepth();
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The average time in milliseconds background tasks have waited for a worker thread before starting.")
+    public double BackgroundWaitTime() {
+        return RuntimeExecutor.getInstance().getAverageWaitMillis();
+    }
+
+    @SimpleFunction(description = "Returns a list with one entry per handled event. Each entry is a list of component name, event name, invocation count, median latency, 99th percentile latency and UI thread time, with times in milliseconds.")
+    public YailList Report() {
+        List<YailList> report = new ArrayList();
+        for (Stats stats : EventMetrics.getAllStats()) {
+            report.add(YailList.makeList(new Object[]{stats.getComponentId(), stats.getEventName(), Long.valueOf(stats.getCount()), Double.valueOf(stats.getPercentileMillis(50.0d)), Double.valueOf(stats.getPercentileMillis(99.0d)), Double.valueOf(stats.getUiThreadMillis())}));
+        }
+        return YailList.makeList((List) report);
+    }
+
+    @SimpleFunction(description = "Returns the recorded event metrics as JSON text.")
+    public String ReportJson() {
+        return EventMetrics.toJSONString();
+    }
+
+    @SimpleFunction(description = "Discards all recorded event and background task metrics.")
+    public void Reset() {
+        EventMetrics.reset();
+        RuntimeExecutor.getInstance().resetStats();
+    }
+}
@@ -11,9 +11,11 @@ import com.google.appinventor.components.annotations.UsesPermissions;
 import com.google.appinventor.components.common.ComponentCategory;
 import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
+import com.google.appinventor.components.runtime.util.CsvUtil.CsvReader;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
+import com.google.appinventor.components.runtime.util.YailList;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -22,9 +24,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
 
 @SimpleObject
-@DesignerComponent(category = ComponentCategory.STORAGE, description = "Non-visible component for storing and retrieving files. Use this component to write or read files on your device. The default behaviour is to write files to the private data directory associated with your App. The Companion is special cased to write files to /sdcard/AppInventor/data to facilitate debugging. If the file path starts with a slash (/), then the file is created relative to /sdcard. For example writing a file to /myFile.txt will write the file in /sdcard/myFile.txt.", docUri = "storage/file", iconName = "images/file.png", nonVisible = true, version = 2)
+@DesignerComponent(category = ComponentCategory.STORAGE, description = "Non-visible component for storing and retrieving files. Use this component to write or read files on your device. The default behaviour is to write files to the private data directory associated with your App. The Companion is special cased to write files to /sdcard/AppInventor/data to facilitate debugging. If the file path starts with a slash (/), then the file is created relative to /sdcard. For example writing a file to /myFile.txt will write the file in /sdcard/myFile.txt.", docUri = "storage/file", iconName = "images/file.png", nonVisible = true, version = 3)
 @UsesPermissions(permissionNames = "android.permission.WRITE_EXTERNAL_STORAGE, android.permission.READ_EXTERNAL_STORAGE")
 public class File extends AndroidNonvisibleComponent implements Component {
     private static final String LOG_TAG = "FileComponent";
@@ -96,6 +99,39 @@ public class File extends AndroidNonvisibleComponent implements Component {
         });
     }
 
+    @SimpleFunction(description = "Reads a CSV table from a file in storage a batch of rows at a time, so that large files can be processed without holding the whole table in memory. File names are interpreted as for ReadFrom. GotCsvRows is triggered for each batch of at most batchSize rows, with the last batch marked as finished.")
+    public void ReadCsvFrom(final String fileName, final int batchSize) {
+        this.form.askPermission("android.permission.READ_EXTERNAL_STORAGE", new PermissionResultHandler() {
+            public void HandlePermissionResponse(String permission, boolean granted) {
+                if (granted) {
+                    try {
+                        InputStream inputStream;
+                        if (fileName.startsWith("//")) {
+                            inputStream = File.this.form.openAsset(fileName.substring(2));
+                        } else {
+                            inputStream = FileUtil.openFile(File.this.AbsoluteFileName(fileName));
+                        }
+                        final InputStream asyncInputStream = inputStream;
+                        AsynchUtil.runAsynchronously(new Runnable() {
+                            public void run() {
+                                File.this.AsyncReadCsv(asyncInputStream, fileName, Math.max(batchSize, 1));
+                            }
+                        });
+                        return;
+                    } catch (PermissionException e) {
+                        File.this.form.dispatchPermissionDeniedEvent(File.this, "ReadCsvFrom", e);
+                        return;
+                    } catch (IOException e2) {
+                        Log.e(File.LOG_TAG, "IOException", e2);
+                        File.this.form.dispatchErrorOccurredEvent(File.this, "ReadCsvFrom", ErrorMessages.ERROR_CANNOT_FIND_FILE, fileName);
+                        return;
+                    }
+                }
+                File.this.form.dispatchPermissionDeniedEvent(File.this, "ReadCsvFrom", permission);
+            }
+        });
+    }
+
     @SimpleFunction(description = "Deletes a file from storage. Prefix the filename with / to delete a specific file in the SD card, for instance /myFile.txt. will delete the file /sdcard/myFile.txt. If the file does not begin with a /, then the file located in the programs private storage will be deleted. Starting the file with // is an error because assets files cannot be deleted.")
     public void Delete(final String fileName) {
         this.form.askPermission("android.permission.WRITE_EXTERNAL_STORAGE", new PermissionResultHandler() {
@@ -274,6 +310,48 @@ public class File extends AndroidNonvisibleComponent implements Component {
         }
     }
 
+    private void AsyncReadCsv(InputStream fileInput, final String fileName, int batchSize) {
+        CsvReader reader = new CsvReader(new InputStreamReader(fileInput));
+        boolean finished;
+        do {
+            try {
+                final YailList rows = reader.readRows(batchSize);
+                finished = rows.size() < batchSize || !reader.hasMoreRows();
+                final boolean lastBatch = finished;
+                final CountDownLatch delivered = new CountDownLatch(1);
+                this.activity.runOnUiThread(new Runnable() {
+                    public void run() {
+                        try {
+                            File.this.GotCsvRows(rows, lastBatch);
+                        } finally {
+                            delivered.countDown();
+                        }
+                    }
+                });
+                delivered.await();
+            } catch (InterruptedException e) {
+                finished = true;
+            } catch (Exception e2) {
+                Log.e(LOG_TAG, "Unable to read CSV from " + fileName, e2);
+                this.activity.runOnUiThread(new Runnable() {
+                    public void run() {
+                        File.this.form.dispatchErrorOccurredEvent(File.this, "ReadCsvFrom", ErrorMessages.ERROR_CANNOT_READ_FILE, fileName);
+                    }
+                });
+                finished = true;
+            }
+        } while (!finished);
+        try {
+            reader.close();
+        } catch (IOException e3) {
+        }
+    }
+
+    @SimpleEvent(description = "Event indicating that a batch of rows has been read by ReadCsvFrom. Each row is a list of cells. finished is true for the last batch of the file.")
+    public void GotCsvRows(YailList rows, boolean finished) {
+        EventDispatcher.dispatchEvent(this, "GotCsvRows", rows, Boolean.valueOf(finished));
+    }
+
     @SimpleEvent(description = "Event indicating that the contents from the file have been read.")
     public void GotText(String text) {
         EventDispatcher.dispatchEvent(this, "GotText", text);
@@ -55,6 +55,7 @@ import com.google.appinventor.components.runtime.multidex.MultiDex;
 import com.google.appinventor.components.runtime.util.AdmobUtil;
 import com.google.appinventor.components.runtime.util.AlignmentUtil;
 import com.google.appinventor.components.runtime.util.AnimationUtil;
+import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
 import com.google.appinventor.components.runtime.util.FullScreenVideoUtil;
@@ -309,6 +310,7 @@ public class Form extends AppInventorCompatActivity implements Component, Compon
         Log.d(LOG_TAG, "Form " + this.formName + " got onCreate");
         activeForm = this;
         Log.i(LOG_TAG, "activeForm is now " + activeForm.formName);
+        MediaUtil.buildAssetIndexAsync(this);
         this.deviceDensity = getResources().getDisplayMetrics().density;
         Log.d(LOG_TAG, "deviceDensity = " + this.deviceDensity);
         this.compatScalingFactor = ScreenDensityUtil.computeCompatibleScaling(this);
@@ -716,6 +718,7 @@ public class Form extends AppInventorCompatActivity implements Component, Compon
         super.onDestroy();
         Log.i(LOG_TAG, "Form " + this.formName + " got onDestroy");
         EventDispatcher.removeDispatchDelegate(this);
+        AsynchUtil.cancelPending(this);
         for (OnDestroyListener onDestroyListener : this.onDestroyListeners) {
             onDestroyListener.onDestroy();
         }
@@ -852,6 +855,7 @@ public class Form extends AppInventorCompatActivity implements Component, Compon
 
     @SimpleEvent
     public void PermissionDenied(Component component, String functionName, String permissionName) {
+        EventDispatcher.forgetResolvedHandlers(component);
         if (permissionName.startsWith("android.permission.")) {
             permissionName = permissionName.replace("android.permission.", "");
         }
@@ -4,6 +4,8 @@ import android.app.Activity;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.media.MediaPlayer.OnCompletionListener;
+import android.media.MediaPlayer.OnErrorListener;
+import android.media.MediaPlayer.OnPreparedListener;
 import android.os.Vibrator;
 import com.google.appinventor.components.annotations.DesignerComponent;
 import com.google.appinventor.components.annotations.DesignerProperty;
@@ -17,28 +19,46 @@ import com.google.appinventor.components.common.ComponentCategory;
 import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FroyoUtil;
+import com.google.appinventor.components.runtime.util.JellybeanUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.SdkLevel;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
 
-@DesignerComponent(category = ComponentCategory.MEDIA, description = "Multimedia component that plays audio and controls phone vibration.  The name of a multimedia field is specified in the <code>Source</code> property, which can be set in the Designer or in the Blocks Editor.  The length of time for a vibration is specified in the Blocks Editor in milliseconds (thousandths of a second).\n<p>For supported audio formats, see <a href=\"http://developer.android.com/guide/appendix/media-formats.html\" target=\"_blank\">Android Supported Media Formats</a>.</p>\n<p>This component is best for long sound files, such as songs, while the <code>Sound</code> component is more efficient for short files, such as sound effects.</p>", docUri = "voice/sound-player", iconName = "images/player.png", nonVisible = true, version = 6)
+@DesignerComponent(category = ComponentCategory.MEDIA, description = "Multimedia component that plays audio and controls phone vibration.  The name of a multimedia field is specified in the <code>Source</code> property, which can be set in the Designer or in the Blocks Editor.  The length of time for a vibration is specified in the Blocks Editor in milliseconds (thousandths of a second).\n<p>For supported audio formats, see <a href=\"http://developer.android.com/guide/appendix/media-formats.html\" target=\"_blank\">Android Supported Media Formats</a>.</p>\n<p>This component is best for long sound files, such as songs, while the <code>Sound</code> component is more efficient for short files, such as sound effects.</p>", docUri = "voice/sound-player", iconName = "images/player.png", nonVisible = true, version = 8)
 @SimpleObject
 @UsesPermissions(permissionNames = "android.permission.VIBRATE, android.permission.INTERNET")
-public final class Player extends AndroidNonvisibleComponent implements Component, OnCompletionListener, OnPauseListener, OnResumeListener, OnDestroyListener, OnStopListener, Deleteable {
+public final class Player extends AndroidNonvisibleComponent implements Component, OnCompletionListener, OnPreparedListener, OnErrorListener, OnPauseListener, OnResumeListener, OnDestroyListener, OnStopListener, Deleteable {
     private static final boolean audioFocusSupported;
     private final Activity activity;
     private Object afChangeListener;
     private AudioManager am;
     private boolean focusOn;
     private boolean loop;
+    private boolean nextAttached;
+    private String nextPath;
+    private MediaPlayer nextPlayer;
+    private boolean nextPrepared;
+    private boolean pendingSourceReady;
     private boolean playOnlyInForeground;
     private MediaPlayer player;
     public State playerState;
+    private boolean prepareAsynchronously;
+    private final LinkedHashMap<String, MediaPlayer> preparedPlayers = new LinkedHashMap(4, 0.75f, true);
+    private int preparedPoolSize;
+    private final ArrayList<String> queue = new ArrayList();
+    private int queueIndex = -1;
+    private boolean startWhenPrepared;
+    private String sourceFunctionName = "Source";
     private String sourcePath = "";
     private final Vibrator vibe = ((Vibrator) this.form.getSystemService("vibrator"));
 
     public enum State {
         INITIAL,
+        PREPARING,
         PREPARED,
         PLAYING,
         PAUSED_BY_USER,
@@ -66,6 +86,8 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
         this.loop = false;
         this.playOnlyInForeground = false;
         this.focusOn = false;
+        this.prepareAsynchronously = false;
+        this.preparedPoolSize = 2;
         if (audioFocusSupported) {
             audioManager = FroyoUtil.setAudioManager(this.activity);
         } else {
@@ -89,35 +111,252 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
         if (path == null) {
             path = "";
         }
+        this.queueIndex = this.queue.indexOf(path);
+        loadSource(path, "Source");
+    }
+
+    private void loadSource(String path, String functionName) {
+        retirePlayer(this.sourcePath);
+        parkNextPlayer();
         this.sourcePath = path;
-        if (this.playerState == State.PREPARED || this.playerState == State.PLAYING || this.playerState == State.PAUSED_BY_USER) {
-            this.player.stop();
-            this.playerState = State.INITIAL;
-        }
-        if (this.player != null) {
-            this.player.release();
-            this.player = null;
-        }
+        this.sourceFunctionName = functionName;
+        this.startWhenPrepared = false;
+        this.pendingSourceReady = false;
         if (this.sourcePath.length() > 0) {
+            MediaPlayer pooled = (MediaPlayer) this.preparedPlayers.remove(this.sourcePath);
+            trimPreparedPlayers();
+            if (pooled != null) {
+                this.player = pooled;
+                this.playerState = State.PREPARED;
+                if (audioFocusSupported) {
+                    requestPermanentFocus();
+                }
+                SourceReady();
+                prepareNextInQueue(functionName);
+                return;
+            }
             this.player = new MediaPlayer();
             this.player.setOnCompletionListener(this);
+            this.player.setOnPreparedListener(this);
+            this.player.setOnErrorListener(this);
             try {
                 MediaUtil.loadMediaPlayer(this.player, this.form, this.sourcePath);
                 this.player.setAudioStreamType(3);
                 if (audioFocusSupported) {
                     requestPermanentFocus();
                 }
+                if (this.prepareAsynchronously) {
+                    this.pendingSourceReady = true;
+                    prepareAsync();
+                    return;
+                }
                 prepare();
+                if (this.player != null) {
+                    SourceReady();
+                    prepareNextInQueue(functionName);
+                }
             } catch (PermissionException e) {
                 this.player.release();
                 this.player = null;
-                this.form.dispatchPermissionDeniedEvent((Component) this, "Source", e);
+                this.form.dispatchPermissionDeniedEvent((Component) this, functionName, e);
             } catch (IOException e2) {
                 this.player.release();
                 this.player = null;
-                this.form.dispatchErrorOccurredEvent(this, "Source", ErrorMessages.ERROR_UNABLE_TO_LOAD_MEDIA, this.sourcePath);
+                this.form.dispatchErrorOccurredEvent(this, functionName, ErrorMessages.ERROR_UNABLE_TO_LOAD_MEDIA, this.sourcePath);
+            }
+        }
+    }
+
+    private void retirePlayer(String path) {
+        if (this.player != null) {
+            detachNextPlayer();
+            if (this.preparedPoolSize <= 0 || path.length() <= 0 || !(this.playerState == State.PREPARED || this.playerState == State.PLAYING || this.playerState == State.PAUSED_BY_USER || this.playerState == State.PAUSED_BY_EVENT)) {
+                if (this.playerState == State.PREPARED || this.playerState == State.PLAYING || this.playerState == State.PAUSED_BY_USER) {
+                    this.player.stop();
+                }
+                this.player.release();
+            } else {
+                poolPlayer(path, this.player);
+                trimPreparedPlayers();
+            }
+            this.player = null;
+        }
+        this.playerState = State.INITIAL;
+    }
+
+    private void poolPlayer(String path, MediaPlayer mediaPlayer) {
+        if (mediaPlayer.isPlaying()) {
+            mediaPlayer.pause();
+        }
+        mediaPlayer.seekTo(0);
+        MediaPlayer replaced = (MediaPlayer) this.preparedPlayers.put(path, mediaPlayer);
+        if (replaced != null && replaced != mediaPlayer) {
+            replaced.release();
+        }
+    }
+
+    private void trimPreparedPlayers() {
+        Iterator<Entry<String, MediaPlayer>> iterator = this.preparedPlayers.entrySet().iterator();
+        while (this.preparedPlayers.size() > this.preparedPoolSize && iterator.hasNext()) {
+            ((MediaPlayer) ((Entry) iterator.next()).getValue()).release();
+            iterator.remove();
+        }
+    }
+
+    private void releasePreparedPlayers() {
+        for (MediaPlayer pooled : this.preparedPlayers.values()) {
+            pooled.release();
+        }
+        this.preparedPlayers.clear();
+    }
+
+    private void prepareNextInQueue(String functionName) {
+        if (this.player != null && this.playerState != State.INITIAL && this.playerState != State.PREPARING && this.queueIndex >= 0 && this.queueIndex + 1 < this.queue.size()) {
+            String path = (String) this.queue.get(this.queueIndex + 1);
+            if (this.nextPlayer == null || !path.equals(this.nextPath)) {
+                releaseNextPlayer();
+                this.nextPath = path;
+                this.nextPlayer = (MediaPlayer) this.preparedPlayers.remove(path);
+                if (this.nextPlayer != null) {
+                    this.nextPrepared = true;
+                } else {
+                    this.nextPlayer = new MediaPlayer();
+                    this.nextPlayer.setOnCompletionListener(this);
+                    this.nextPlayer.setOnPreparedListener(this);
+                    this.nextPlayer.setOnErrorListener(this);
+                    try {
+                        MediaUtil.loadMediaPlayer(this.nextPlayer, this.form, path);
+                        this.nextPlayer.setAudioStreamType(3);
+                        this.nextPlayer.prepareAsync();
+                    } catch (PermissionException e) {
+                        releaseNextPlayer();
+                        this.form.dispatchPermissionDeniedEvent((Component) this, functionName, e);
+                        return;
+                    } catch (IOException e2) {
+                        releaseNextPlayer();
+                        return;
+                    }
+                }
+            }
+            attachNextPlayer();
+        }
+    }
+
+    private void attachNextPlayer() {
+        if (this.player != null && this.nextPlayer != null && this.nextPrepared && !this.nextAttached && !this.loop && SdkLevel.getLevel() >= 16) {
+            JellybeanUtil.setNextMediaPlayer(this.player, this.nextPlayer);
+            this.nextAttached = true;
+        }
+    }
+
+    private void detachNextPlayer() {
+        if (this.nextAttached && this.player != null) {
+            JellybeanUtil.setNextMediaPlayer(this.player, null);
+        }
+        this.nextAttached = false;
+    }
+
+    private void parkNextPlayer() {
+        if (this.nextPlayer == null || !this.nextPrepared) {
+            releaseNextPlayer();
+            return;
+        }
+        detachNextPlayer();
+        poolPlayer(this.nextPath, this.nextPlayer);
+        this.nextPlayer = null;
+        this.nextPath = null;
+        this.nextPrepared = false;
+    }
+
+    private void releaseNextPlayer() {
+        detachNextPlayer();
+        if (this.nextPlayer != null) {
+            this.nextPlayer.release();
+            this.nextPlayer = null;
+        }
+        this.nextPath = null;
+        this.nextPrepared = false;
+    }
+
+    private void playQueueItem(int index, String functionName) {
+        String path = (String) this.queue.get(index);
+        this.queueIndex = index;
+        loadSource(path, functionName);
+        TrackChanged(index + 1, path);
+        Start();
+    }
+
+    @SimpleFunction(description = "Adds a source to the end of the play queue. The next source in the queue is prepared in the background while the current one plays, and playback continues into it without a gap. If no Source is set, the first enqueued source becomes the Source.")
+    public void Enqueue(String path) {
+        if (path == null) {
+            path = "";
+        }
+        if (path.length() > 0) {
+            this.queue.add(path);
+            if (this.queueIndex < 0 && this.sourcePath.length() == 0) {
+                this.queueIndex = this.queue.size() - 1;
+                loadSource(path, "Enqueue");
+                return;
             }
+            prepareNextInQueue("Enqueue");
+        }
+    }
+
+    @SimpleFunction(description = "Switches to the next source in the queue and starts playing it.")
+    public void Next() {
+        if (this.queueIndex + 1 < this.queue.size()) {
+            playQueueItem(this.queueIndex + 1, "Next");
+        }
+    }
+
+    @SimpleFunction(description = "Switches to the previous source in the queue and starts playing it.")
+    public void Previous() {
+        if (this.queueIndex > 0) {
+            playQueueItem(this.queueIndex - 1, "Previous");
+        }
+    }
+
+    @SimpleFunction(description = "Removes all sources from the play queue. The current Source is not affected.")
+    public void ClearQueue() {
+        this.queue.clear();
+        this.queueIndex = -1;
+        releaseNextPlayer();
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of sources in the play queue.")
+    public int QueueSize() {
+        return this.queue.size();
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The position in the play queue of the current Source, starting at 1, or 0 if the current Source is not from the queue.")
+    public int QueuePosition() {
+        return this.queueIndex + 1;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If true, setting Source prepares the media in the background and signals SourceReady when it can be played, instead of blocking until the media is loaded.")
+    public boolean PrepareAsynchronously() {
+        return this.prepareAsynchronously;
+    }
+
+    @DesignerProperty(defaultValue = "False", editorType = "boolean")
+    @SimpleProperty
+    public void PrepareAsynchronously(boolean async) {
+        this.prepareAsynchronously = async;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of recently used sources kept prepared, so that switching back to one of them does not have to load the media again. Set to 0 to release each source as soon as another one is set.")
+    public int PreparedPoolSize() {
+        return this.preparedPoolSize;
+    }
+
+    @DesignerProperty(defaultValue = "2", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void PreparedPoolSize(int size) {
+        if (size < 0) {
+            size = 0;
         }
+        this.preparedPoolSize = size;
+        trimPreparedPlayers();
     }
 
     private void requestPermanentFocus() {
@@ -153,6 +392,11 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
             this.player.setLooping(shouldLoop);
         }
         this.loop = shouldLoop;
+        if (shouldLoop) {
+            detachNextPlayer();
+        } else {
+            attachNextPlayer();
+        }
     }
 
     @DesignerProperty(defaultValue = "50", editorType = "non_negative_float")
@@ -184,7 +428,9 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
         if (audioFocusSupported && !this.focusOn) {
             requestPermanentFocus();
         }
-        if (this.playerState == State.PREPARED || this.playerState == State.PLAYING || this.playerState == State.PAUSED_BY_USER || this.playerState == State.PAUSED_BY_EVENT) {
+        if (this.playerState == State.PREPARING) {
+            this.startWhenPrepared = true;
+        } else if (this.playerState == State.PREPARED || this.playerState == State.PLAYING || this.playerState == State.PAUSED_BY_USER || this.playerState == State.PAUSED_BY_EVENT) {
             this.player.setLooping(this.loop);
             this.player.start();
             this.playerState = State.PLAYING;
@@ -193,6 +439,7 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
 
     @SimpleFunction
     public void Pause() {
+        this.startWhenPrepared = false;
         if (this.player != null) {
             boolean wasPlaying = this.player.isPlaying();
             if (this.playerState == State.PLAYING) {
@@ -216,11 +463,18 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
         if (audioFocusSupported && this.focusOn) {
             abandonFocus();
         }
+        this.startWhenPrepared = false;
         if (this.playerState == State.PLAYING || this.playerState == State.PAUSED_BY_USER || this.playerState == State.PAUSED_BY_EVENT) {
             this.player.stop();
+            this.nextAttached = false;
+            if (this.prepareAsynchronously) {
+                prepareAsync();
+                return;
+            }
             prepare();
             if (this.player != null) {
                 this.player.seekTo(0);
+                attachNextPlayer();
             }
         }
     }
@@ -251,8 +505,83 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
         }
     }
 
+    private void prepareAsync() {
+        this.playerState = State.PREPARING;
+        this.player.prepareAsync();
+    }
+
+    public void onPrepared(MediaPlayer m) {
+        if (m == this.nextPlayer) {
+            this.nextPrepared = true;
+            attachNextPlayer();
+        } else if (m == this.player && this.playerState == State.PREPARING) {
+            this.playerState = State.PREPARED;
+            if (this.pendingSourceReady) {
+                this.pendingSourceReady = false;
+                SourceReady();
+            }
+            if (this.startWhenPrepared) {
+                this.startWhenPrepared = false;
+                Start();
+            }
+            prepareNextInQueue(this.sourceFunctionName);
+        }
+    }
+
+    public boolean onError(MediaPlayer m, int what, int extra) {
+        if (m == this.nextPlayer) {
+            releaseNextPlayer();
+            return true;
+        } else if (m != this.player || this.playerState != State.PREPARING) {
+            return false;
+        }
+        this.player.release();
+        this.player = null;
+        this.playerState = State.INITIAL;
+        this.startWhenPrepared = false;
+        this.pendingSourceReady = false;
+        this.form.dispatchErrorOccurredEvent(this, "Source", ErrorMessages.ERROR_UNABLE_TO_PREPARE_MEDIA, this.sourcePath);
+        return true;
+    }
+
     public void onCompletion(MediaPlayer m) {
-        Completed();
+        if (m == this.player) {
+            if (this.nextAttached) {
+                MediaPlayer finished = this.player;
+                String finishedPath = this.sourcePath;
+                this.nextAttached = false;
+                JellybeanUtil.setNextMediaPlayer(finished, null);
+                this.player = this.nextPlayer;
+                this.sourcePath = this.nextPath;
+                this.nextPlayer = null;
+                this.nextPath = null;
+                this.nextPrepared = false;
+                this.queueIndex++;
+                this.playerState = State.PLAYING;
+                if (this.preparedPoolSize > 0) {
+                    poolPlayer(finishedPath, finished);
+                    trimPreparedPlayers();
+                } else {
+                    finished.release();
+                }
+                TrackChanged(this.queueIndex + 1, this.sourcePath);
+                prepareNextInQueue("Enqueue");
+            } else if (this.queueIndex < 0 || this.queueIndex + 1 >= this.queue.size()) {
+                Completed();
+            } else {
+                playQueueItem(this.queueIndex + 1, "Enqueue");
+            }
+        }
+    }
+
+    @SimpleEvent(description = "Indicates that playback moved to another source in the play queue. The position starts at 1.")
+    public void TrackChanged(int position, String source) {
+        EventDispatcher.dispatchEvent(this, "TrackChanged", Integer.valueOf(position), source);
+    }
+
+    @SimpleEvent(description = "Indicates that the media set in Source has been prepared and Start will begin playback without delay.")
+    public void SourceReady() {
+        EventDispatcher.dispatchEvent(this, "SourceReady", new Object[0]);
     }
 
     @SimpleEvent
@@ -298,14 +627,17 @@ public final class Player extends AndroidNonvisibleComponent implements Componen
         if (audioFocusSupported && this.focusOn) {
             abandonFocus();
         }
-        if (!(this.player == null || this.playerState == State.INITIAL)) {
+        if (!(this.player == null || this.playerState == State.INITIAL || this.playerState == State.PREPARING)) {
             this.player.stop();
         }
         this.playerState = State.INITIAL;
+        this.startWhenPrepared = false;
+        releaseNextPlayer();
         if (this.player != null) {
             this.player.release();
             this.player = null;
         }
+        releasePreparedPlayers();
         this.vibe.cancel();
     }
 }
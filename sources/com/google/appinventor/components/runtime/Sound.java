@@ -18,12 +18,17 @@ import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.SdkLevel;
+import com.google.appinventor.components.runtime.util.YailList;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
 import org.apache.http.HttpStatus;
 
-@DesignerComponent(category = ComponentCategory.MEDIA, description = "<p>A multimedia component that plays sound files and optionally vibrates for the number of milliseconds (thousandths of a second) specified in the Blocks Editor.  The name of the sound file to play can be specified either in the Designer or in the Blocks Editor.</p> <p>For supported sound file formats, see <a href=\"http://developer.android.com/guide/appendix/media-formats.html\" target=\"_blank\">Android Supported Media Formats</a>.</p><p>This <code>Sound</code> component is best for short sound files, such as sound effects, while the <code>Player</code> component is more efficient for longer sounds, such as songs.</p><p>You might get an error if you attempt to play a sound immeditely after setting the source.</p>", docUri = "voice/sound-player", iconName = "images/soundEffect.png", nonVisible = true, version = 3)
+@DesignerComponent(category = ComponentCategory.MEDIA, description = "<p>A multimedia component that plays sound files and optionally vibrates for the number of milliseconds (thousandths of a second) specified in the Blocks Editor.  The name of the sound file to play can be specified either in the Designer or in the Blocks Editor.</p> <p>For supported sound file formats, see <a href=\"http://developer.android.com/guide/appendix/media-formats.html\" target=\"_blank\">Android Supported Media Formats</a>.</p><p>This <code>Sound</code> component is best for short sound files, such as sound effects, while the <code>Player</code> component is more efficient for longer sounds, such as songs.</p><p>You might get an error if you attempt to play a sound immeditely after setting the source.</p>", docUri = "voice/sound-player", iconName = "images/soundEffect.png", nonVisible = true, version = 4)
 @SimpleObject
 @UsesPermissions(permissionNames = "android.permission.VIBRATE, android.permission.INTERNET")
 public class Sound extends AndroidNonvisibleComponent implements Component, OnResumeListener, OnStopListener, OnDestroyListener, Deleteable {
@@ -35,10 +40,13 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
     private static final float VOLUME_FULL = 1.0f;
     private int delayRetries;
     private boolean loadComplete;
+    private final Set<Integer> loadedSamples;
     private int minimumInterval;
+    private final HashMap<Integer, String> pendingPreloads;
     private final Handler playWaitHandler;
+    private int sampleCacheSize;
     private int soundId;
-    private final Map<String, Integer> soundMap;
+    private final LinkedHashMap<String, Integer> soundMap;
     private SoundPool soundPool;
     private String sourcePath;
     private int streamId;
@@ -46,6 +54,7 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
     private long timeLastPlayed;
     private final Vibrator vibe;
     private final boolean waitForLoadToComplete;
+    private boolean waitingForPreload;
 
     /* renamed from: com.google.appinventor.components.runtime.Sound$1 */
     class C03851 implements Runnable {
@@ -72,7 +81,7 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
             }
 
             public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
-                Sound.this.loadComplete = true;
+                Sound.this.sampleLoaded(sampleId, status);
             }
         }
 
@@ -90,7 +99,10 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
         this.playWaitHandler = new Handler();
         this.thisComponent = this;
         this.soundPool = new SoundPool(10, 3, 0);
-        this.soundMap = new HashMap();
+        this.soundMap = new LinkedHashMap(16, 0.75f, true);
+        this.loadedSamples = new HashSet();
+        this.pendingPreloads = new HashMap();
+        this.sampleCacheSize = 32;
         this.vibe = (Vibrator) this.form.getSystemService("vibrator");
         this.sourcePath = "";
         this.loadComplete = true;
@@ -125,13 +137,13 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
             Integer existingSoundId = (Integer) this.soundMap.get(this.sourcePath);
             if (existingSoundId != null) {
                 this.soundId = existingSoundId.intValue();
+                this.loadComplete = this.loadedSamples.contains(existingSoundId);
                 return;
             }
             Log.i("Sound", "No existing sound with path " + this.sourcePath + ".");
             try {
-                int newSoundId = MediaUtil.loadSoundPool(this.soundPool, this.form, this.sourcePath);
+                int newSoundId = loadSample(this.sourcePath);
                 if (newSoundId != 0) {
-                    this.soundMap.put(this.sourcePath, Integer.valueOf(newSoundId));
                     Log.i("Sound", "Successfully began loading sound: setting soundId to " + newSoundId + ".");
                     this.soundId = newSoundId;
                     this.loadComplete = false;
@@ -146,6 +158,107 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
         }
     }
 
+    private int loadSample(String path) throws IOException {
+        int newSoundId = MediaUtil.loadSoundPool(this.soundPool, this.form, path);
+        if (newSoundId != 0) {
+            this.soundMap.put(path, Integer.valueOf(newSoundId));
+            trimSampleCache(path);
+        }
+        return newSoundId;
+    }
+
+    private void trimSampleCache(String keepPath) {
+        Iterator<Entry<String, Integer>> iterator = this.soundMap.entrySet().iterator();
+        while (this.soundMap.size() > Math.max(this.sampleCacheSize, 1) && iterator.hasNext()) {
+            Entry<String, Integer> eldest = (Entry) iterator.next();
+            int sampleId = ((Integer) eldest.getValue()).intValue();
+            if (sampleId != this.soundId && !((String) eldest.getKey()).equals(keepPath)) {
+                Log.i("Sound", "Unloading sound " + ((String) eldest.getKey()) + " to stay within SampleCacheSize.");
+                this.soundPool.unload(sampleId);
+                this.loadedSamples.remove(eldest.getValue());
+                this.pendingPreloads.remove(eldest.getValue());
+                iterator.remove();
+            }
+        }
+        if (this.pendingPreloads.isEmpty() && this.waitingForPreload) {
+            this.waitingForPreload = false;
+            SamplesLoaded();
+        }
+    }
+
+    private void sampleLoaded(int sampleId, int status) {
+        Integer id = Integer.valueOf(sampleId);
+        if (status == 0) {
+            this.loadedSamples.add(id);
+        }
+        if (sampleId == this.soundId) {
+            this.loadComplete = true;
+        }
+        String path = (String) this.pendingPreloads.remove(id);
+        if (path != null) {
+            if (status != 0) {
+                this.soundMap.remove(path);
+                this.form.dispatchErrorOccurredEvent(this, "Preload", ErrorMessages.ERROR_UNABLE_TO_LOAD_MEDIA, path);
+            }
+            if (this.pendingPreloads.isEmpty() && this.waitingForPreload) {
+                this.waitingForPreload = false;
+                SamplesLoaded();
+            }
+        } else if (status != 0) {
+            this.soundMap.values().remove(id);
+        }
+    }
+
+    @SimpleFunction(description = "Starts loading each of the given sound files so that a later Play after setting Source to one of them starts without delay. SamplesLoaded is signaled once all of them are ready. Only the most recently used SampleCacheSize sounds are kept loaded.")
+    public void Preload(YailList paths) {
+        this.waitingForPreload = false;
+        for (String path : paths.toStringArray()) {
+            Integer existingSoundId = (Integer) this.soundMap.get(path);
+            if (existingSoundId != null) {
+                if (this.waitForLoadToComplete && !this.loadedSamples.contains(existingSoundId)) {
+                    this.pendingPreloads.put(existingSoundId, path);
+                }
+            } else if (path.length() != 0) {
+                try {
+                    int newSoundId = loadSample(path);
+                    if (newSoundId == 0) {
+                        this.form.dispatchErrorOccurredEvent(this, "Preload", ErrorMessages.ERROR_UNABLE_TO_LOAD_MEDIA, path);
+                    } else if (this.waitForLoadToComplete) {
+                        this.pendingPreloads.put(Integer.valueOf(newSoundId), path);
+                    } else {
+                        this.loadedSamples.add(Integer.valueOf(newSoundId));
+                    }
+                } catch (PermissionException e) {
+                    this.form.dispatchPermissionDeniedEvent((Component) this, "Preload", e);
+                } catch (IOException e2) {
+                    this.form.dispatchErrorOccurredEvent(this, "Preload", ErrorMessages.ERROR_UNABLE_TO_LOAD_MEDIA, path);
+                }
+            }
+        }
+        this.waitingForPreload = true;
+        if (this.pendingPreloads.isEmpty()) {
+            this.waitingForPreload = false;
+            SamplesLoaded();
+        }
+    }
+
+    @SimpleEvent(description = "Indicates that all the sounds passed to Preload are loaded and ready to play.")
+    public void SamplesLoaded() {
+        EventDispatcher.dispatchEvent(this, "SamplesLoaded", new Object[0]);
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The maximum number of sounds kept loaded. When more sounds are loaded, the least recently used ones are unloaded to free memory.")
+    public int SampleCacheSize() {
+        return this.sampleCacheSize;
+    }
+
+    @DesignerProperty(defaultValue = "32", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void SampleCacheSize(int size) {
+        this.sampleCacheSize = Math.max(0, size);
+        trimSampleCache(this.sourcePath);
+    }
+
     @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The minimum interval, in milliseconds, between sounds.  If you play a sound, all further Play() calls will be ignored until the interval has elapsed.")
     public int MinimumInterval() {
         return this.minimumInterval;
@@ -255,6 +368,9 @@ public class Sound extends AndroidNonvisibleComponent implements Component, OnRe
             this.soundPool.stop(this.streamId);
             this.soundPool.unload(this.streamId);
         }
+        this.soundMap.clear();
+        this.loadedSamples.clear();
+        this.pendingPreloads.clear();
         this.soundPool.release();
         this.vibe.cancel();
         this.soundPool = null;
@@ -3,27 +3,118 @@ package com.google.appinventor.components.runtime;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.util.Log;
 import com.google.appinventor.components.annotations.DesignerComponent;
 import com.google.appinventor.components.annotations.DesignerProperty;
 import com.google.appinventor.components.annotations.PropertyCategory;
+import com.google.appinventor.components.annotations.SimpleEvent;
 import com.google.appinventor.components.annotations.SimpleFunction;
 import com.google.appinventor.components.annotations.SimpleObject;
 import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.common.ComponentCategory;
 import com.google.appinventor.components.runtime.errors.YailRuntimeError;
+import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.JsonUtil;
+import com.google.appinventor.components.runtime.util.LogKeyValueStore;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map.Entry;
 import org.json.JSONException;
 
 @SimpleObject
-@DesignerComponent(category = ComponentCategory.STORAGE, description = "TinyDB is a non-visible component that stores data for an app. <p> Apps created with App Inventor are initialized each time they run: If an app sets the value of a variable and the user then quits the app, the value of that variable will not be remembered the next time the app is run. In contrast, TinyDB is a <em> persistent </em> data store for the app, that is, the data stored there will be available each time the app is run. An example might be a game that saves the high score and retrieves it each time the game is played. </<p> <p> Data items are strings stored under <em>tags</em> . To store a data item, you specify the tag it should be stored under.  Subsequently, you can retrieve the data that was stored under a given tag. </p><p> There is only one data store per app. Even if you have multiple TinyDB components, they will use the same data store. To get the effect of separate stores, use different keys. Also each app has its own data store. You cannot use TinyDB to pass data between two different apps on the phone, although you <em>can</em> use TinyDb to shares data between the different screens of a multi-screen app. </p> <p>When you are developing apps using the AI Companion, all the apps using that companion will share the same TinyDb.  That sharing will disappear once the apps are packaged.  But, during development, you should be careful to clear the TinyDb each time you start working on a new app.</p>", docUri = "storage/tiny-db", iconName = "images/tinyDB.png", nonVisible = true, version = 2)
+@DesignerComponent(category = ComponentCategory.STORAGE, description = "TinyDB is a non-visible component that stores data for an app. <p> Apps created with App Inventor are initialized each time they run: If an app sets the value of a variable and the user then quits the app, the value of that variable will not be remembered the next time the app is run. In contrast, TinyDB is a <em> persistent </em> data store for the app, that is, the data stored there will be available each time the app is run. An example might be a game that saves the high score and retrieves it each time the game is played. </<p> <p> Data items are strings stored under <em>tags</em> . To store a data item, you specify the tag it should be stored under.  Subsequently, you can retrieve the data that was stored under a given tag. </p><p> There is only one data store per app. Even if you have multiple TinyDB components, they will use the same data store. To get the effect of separate stores, use different keys. Also each app has its own data store. You cannot use TinyDB to pass data between two different apps on the phone, although you <em>can</em> use TinyDb to shares data between the different screens of a multi-screen app. </p> <p>When you are developing apps using the AI Companion, all the apps using that companion will share the same TinyDb.  That sharing will disappear once the apps are packaged.  But, during development, you should be careful to clear the TinyDb each time you start working on a new app.</p>", docUri = "storage/tiny-db", iconName = "images/tinyDB.png", nonVisible = true, version = 5)
 public class TinyDB extends AndroidNonvisibleComponent implements Component, Deleteable {
     public static final String DEFAULT_NAMESPACE = "TinyDB1";
+    private static final String LOG_TAG = "TinyDB";
+    private static final int MAX_CACHED_VALUES = 128;
+    private static final HashMap<String, ValueCache> valueCaches = new HashMap();
+    private boolean asynchronousCommit;
+    private boolean batchCleared;
+    private Editor batchEditor;
+    private HashMap<String, String> batchValues;
     private Context context;
+    private boolean flushing;
     private String namespace;
     private SharedPreferences sharedPreferences;
+    private boolean useLogStore;
+    private ValueCache valueCache;
+    private int writeGeneration;
+
+    private static final class ValueCache implements OnSharedPreferenceChangeListener {
+        private final SharedPreferences sharedPreferences;
+        private List<String> sortedTags;
+        private List<String> tagsView;
+        private final LinkedHashMap<String, Object> values = new LinkedHashMap(16, 0.75f, true);
+
+        ValueCache(SharedPreferences sharedPreferences) {
+            this.sharedPreferences = sharedPreferences;
+            sharedPreferences.registerOnSharedPreferenceChangeListener(this);
+        }
+
+        /* access modifiers changed from: 0000 */
+        public synchronized Object getValue(String tag, Object valueIfTagNotThere) throws JSONException {
+            if (this.values.containsKey(tag)) {
+                return this.values.get(tag);
+            }
+            String value = this.sharedPreferences.getString(tag, "");
+            if (value.length() == 0) {
+                return valueIfTagNotThere;
+            }
+            Object decoded = JsonUtil.getObjectFromJson(value);
+            this.values.put(tag, decoded);
+            if (this.values.size() > TinyDB.MAX_CACHED_VALUES) {
+                this.values.remove(this.values.keySet().iterator().next());
+            }
+            return decoded;
+        }
+
+        /* access modifiers changed from: 0000 */
+        public synchronized List<String> getTags() {
+            if (this.sortedTags == null) {
+                this.sortedTags = new ArrayList(this.sharedPreferences.getAll().keySet());
+                Collections.sort(this.sortedTags);
+            }
+            if (this.tagsView == null) {
+                this.tagsView = Collections.unmodifiableList(new ArrayList(this.sortedTags));
+            }
+            return this.tagsView;
+        }
+
+        /* access modifiers changed from: 0000 */
+        public synchronized void invalidate(String tag, boolean present) {
+            this.values.remove(tag);
+            if (this.sortedTags != null) {
+                int index = Collections.binarySearch(this.sortedTags, tag);
+                if (present && index < 0) {
+                    this.sortedTags.add((-index) - 1, tag);
+                    this.tagsView = null;
+                } else if (!present && index >= 0) {
+                    this.sortedTags.remove(index);
+                    this.tagsView = null;
+                }
+            }
+        }
+
+        /* access modifiers changed from: 0000 */
+        public synchronized void invalidateAll() {
+            this.values.clear();
+            this.sortedTags = null;
+            this.tagsView = null;
+        }
+
+        public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+            if (key == null) {
+                invalidateAll();
+            } else {
+                invalidate(key, sharedPreferences.contains(key));
+            }
+        }
+    }
 
     public TinyDB(ComponentContainer container) {
         super(container.$form());
@@ -34,8 +125,11 @@ public class TinyDB extends AndroidNonvisibleComponent implements Component, Del
     @DesignerProperty(defaultValue = "TinyDB1", editorType = "string")
     @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "Namespace for storing data.")
     public void Namespace(String namespace) {
+        if (this.batchEditor != null) {
+            CommitBatch();
+        }
         this.namespace = namespace;
-        this.sharedPreferences = this.context.getSharedPreferences(namespace, 0);
+        openStore();
     }
 
     @SimpleProperty(description = "Namespace for storing data.")
@@ -43,12 +137,93 @@ public class TinyDB extends AndroidNonvisibleComponent implements Component, Del
         return this.namespace;
     }
 
+    @DesignerProperty(defaultValue = "False", editorType = "boolean")
+    @SimpleProperty
+    public void UseLogStore(boolean useLogStore) {
+        if (this.useLogStore != useLogStore) {
+            if (this.batchEditor != null) {
+                CommitBatch();
+            }
+            this.useLogStore = useLogStore;
+            openStore();
+        }
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If true, values are kept in an append-only log file with a sorted in-memory index instead of the Android shared preferences file. Writes only append the changed values, which keeps large stores fast to update. The two stores hold separate data.")
+    public boolean UseLogStore() {
+        return this.useLogStore;
+    }
+
+    @DesignerProperty(defaultValue = "False", editorType = "boolean")
+    @SimpleProperty
+    public void AsynchronousCommit(boolean asynchronousCommit) {
+        this.asynchronousCommit = asynchronousCommit;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If true, changes are written to storage in the background instead of blocking until the write has finished. AfterValuesSaved is triggered once the background writes have reached storage.")
+    public boolean AsynchronousCommit() {
+        return this.asynchronousCommit;
+    }
+
+    @SimpleFunction(description = "Starts a batch of changes. StoreValue, ClearTag and ClearAll calls made before CommitBatch are collected and written to storage together in a single write. GetValue and GetTags see the uncommitted changes.")
+    public void BeginBatch() {
+        if (this.batchEditor == null) {
+            this.batchEditor = this.sharedPreferences.edit();
+            this.batchValues = new HashMap();
+            this.batchCleared = false;
+        }
+    }
+
+    @SimpleFunction(description = "Writes all changes made since BeginBatch to storage in a single write.")
+    public void CommitBatch() {
+        if (this.batchEditor != null) {
+            Editor sharedPrefsEditor = this.batchEditor;
+            HashMap<String, String> values = this.batchValues;
+            boolean cleared = this.batchCleared;
+            this.batchEditor = null;
+            this.batchValues = null;
+            this.batchCleared = false;
+            commit(sharedPrefsEditor);
+            if (cleared) {
+                this.valueCache.invalidateAll();
+                return;
+            }
+            for (Entry<String, String> entry : values.entrySet()) {
+                this.valueCache.invalidate((String) entry.getKey(), entry.getValue() != null);
+            }
+        }
+    }
+
+    @SimpleFunction(description = "Discards all changes made since BeginBatch.")
+    public void CancelBatch() {
+        this.batchEditor = null;
+        this.batchValues = null;
+        this.batchCleared = false;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "True between BeginBatch and CommitBatch or CancelBatch.")
+    public boolean InBatch() {
+        return this.batchEditor != null;
+    }
+
+    @SimpleEvent(description = "Indicates that all changes written with AsynchronousCommit enabled have been saved to storage.")
+    public void AfterValuesSaved() {
+        EventDispatcher.dispatchEvent(this, "AfterValuesSaved");
+    }
+
     @SimpleFunction
     public void StoreValue(String tag, Object valueToStore) {
-        Editor sharedPrefsEditor = this.sharedPreferences.edit();
         try {
-            sharedPrefsEditor.putString(tag, JsonUtil.getJsonRepresentation(valueToStore));
-            sharedPrefsEditor.commit();
+            String value = JsonUtil.getJsonRepresentation(valueToStore);
+            if (this.batchEditor != null) {
+                this.batchEditor.putString(tag, value);
+                this.batchValues.put(tag, value);
+                return;
+            }
+            Editor sharedPrefsEditor = this.sharedPreferences.edit();
+            sharedPrefsEditor.putString(tag, value);
+            commit(sharedPrefsEditor);
+            this.valueCache.invalidate(tag, true);
         } catch (JSONException e) {
             throw new YailRuntimeError("Value failed to convert to JSON.", "JSON Creation Error.");
         }
@@ -57,7 +232,10 @@ public class TinyDB extends AndroidNonvisibleComponent implements Component, Del
     @SimpleFunction
     public Object GetValue(String tag, Object valueIfTagNotThere) {
         try {
-            String value = this.sharedPreferences.getString(tag, "");
+            if (this.batchEditor == null || !(this.batchCleared || this.batchValues.containsKey(tag))) {
+                return this.valueCache.getValue(tag, valueIfTagNotThere);
+            }
+            String value = getStoredString(tag);
             if (value.length() != 0) {
                 valueIfTagNotThere = JsonUtil.getObjectFromJson(value);
             }
@@ -69,29 +247,169 @@ public class TinyDB extends AndroidNonvisibleComponent implements Component, Del
 
     @SimpleFunction
     public Object GetTags() {
+        if (this.batchEditor == null) {
+            return this.valueCache.getTags();
+        }
         List<String> keyList = new ArrayList();
-        keyList.addAll(this.sharedPreferences.getAll().keySet());
+        if (!this.batchCleared) {
+            keyList.addAll(this.valueCache.getTags());
+        }
+        for (Entry<String, String> entry : this.batchValues.entrySet()) {
+            if (entry.getValue() == null) {
+                keyList.remove(entry.getKey());
+            } else if (!keyList.contains(entry.getKey())) {
+                keyList.add(entry.getKey());
+            }
+        }
         Collections.sort(keyList);
         return keyList;
     }
 
+    @SimpleFunction(description = "Returns a sorted list of the tags that start with the given prefix.")
+    public Object GetTagsWithPrefix(String prefix) {
+        if (this.batchEditor == null && (this.sharedPreferences instanceof LogKeyValueStore)) {
+            return ((LogKeyValueStore) this.sharedPreferences).getKeysWithPrefix(prefix);
+        }
+        List<String> tags = (List) GetTags();
+        List<String> result = new ArrayList();
+        for (int i = lowerBound(tags, prefix); i < tags.size(); i++) {
+            String tag = (String) tags.get(i);
+            if (!tag.startsWith(prefix)) {
+                break;
+            }
+            result.add(tag);
+        }
+        return result;
+    }
+
+    @SimpleFunction(description = "Returns a sorted list of the tags that are alphabetically between from and to, including both ends.")
+    public Object GetTagsInRange(String from, String to) {
+        if (this.batchEditor == null && (this.sharedPreferences instanceof LogKeyValueStore)) {
+            return ((LogKeyValueStore) this.sharedPreferences).getKeysInRange(from, to);
+        }
+        List<String> tags = (List) GetTags();
+        List<String> result = new ArrayList();
+        for (int i = lowerBound(tags, from); i < tags.size(); i++) {
+            String tag = (String) tags.get(i);
+            if (tag.compareTo(to) > 0) {
+                break;
+            }
+            result.add(tag);
+        }
+        return result;
+    }
+
     @SimpleFunction
     public void ClearAll() {
+        if (this.batchEditor != null) {
+            for (String tag : this.batchValues.keySet()) {
+                this.batchEditor.remove(tag);
+            }
+            this.batchEditor.clear();
+            this.batchValues.clear();
+            this.batchCleared = true;
+            return;
+        }
         Editor sharedPrefsEditor = this.sharedPreferences.edit();
         sharedPrefsEditor.clear();
-        sharedPrefsEditor.commit();
+        commit(sharedPrefsEditor);
+        this.valueCache.invalidateAll();
     }
 
     @SimpleFunction
     public void ClearTag(String tag) {
+        if (this.batchEditor != null) {
+            this.batchEditor.remove(tag);
+            this.batchValues.put(tag, null);
+            return;
+        }
         Editor sharedPrefsEditor = this.sharedPreferences.edit();
         sharedPrefsEditor.remove(tag);
+        commit(sharedPrefsEditor);
+        this.valueCache.invalidate(tag, false);
+    }
+
+    private void openStore() {
+        if (this.useLogStore) {
+            try {
+                this.sharedPreferences = LogKeyValueStore.getInstance(this.context, this.namespace);
+                this.valueCache = getValueCache("log:" + this.namespace, this.sharedPreferences);
+                return;
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Unable to open the log store for " + this.namespace + ", using SharedPreferences", e);
+            }
+        }
+        this.sharedPreferences = this.context.getSharedPreferences(this.namespace, 0);
+        this.valueCache = getValueCache(this.namespace, this.sharedPreferences);
+    }
+
+    private static int lowerBound(List<String> tags, String key) {
+        int index = Collections.binarySearch(tags, key);
+        return index < 0 ? (-index) - 1 : index;
+    }
+
+    private static ValueCache getValueCache(String namespace, SharedPreferences sharedPreferences) {
+        ValueCache valueCache;
+        synchronized (valueCaches) {
+            valueCache = (ValueCache) valueCaches.get(namespace);
+            if (valueCache == null || valueCache.sharedPreferences != sharedPreferences) {
+                valueCache = new ValueCache(sharedPreferences);
+                valueCaches.put(namespace, valueCache);
+            }
+        }
+        return valueCache;
+    }
+
+    private String getStoredString(String tag) {
+        if (this.batchEditor != null) {
+            if (this.batchValues.containsKey(tag)) {
+                String value = (String) this.batchValues.get(tag);
+                return value == null ? "" : value;
+            } else if (this.batchCleared) {
+                return "";
+            }
+        }
+        return this.sharedPreferences.getString(tag, "");
+    }
+
+    private void commit(Editor sharedPrefsEditor) {
+        if (this.asynchronousCommit) {
+            sharedPrefsEditor.apply();
+            this.writeGeneration++;
+            scheduleFlushEvent();
+            return;
+        }
         sharedPrefsEditor.commit();
     }
 
+    private void scheduleFlushEvent() {
+        if (!this.flushing) {
+            this.flushing = true;
+            final int generation = this.writeGeneration;
+            final SharedPreferences preferences = this.sharedPreferences;
+            AsynchUtil.runAsynchronously(new Runnable() {
+                public void run() {
+                    preferences.edit().commit();
+                    TinyDB.this.form.runOnUiThread(new Runnable() {
+                        public void run() {
+                            TinyDB.this.flushing = false;
+                            if (generation == TinyDB.this.writeGeneration) {
+                                TinyDB.this.AfterValuesSaved();
+                            } else {
+                                TinyDB.this.scheduleFlushEvent();
+                            }
+                        }
+                    });
+                }
+            });
+        }
+    }
+
     public void onDelete() {
+        CancelBatch();
         Editor sharedPrefsEditor = this.sharedPreferences.edit();
         sharedPrefsEditor.clear();
         sharedPrefsEditor.commit();
+        this.valueCache.invalidateAll();
     }
 }
@@ -15,6 +15,7 @@ import com.google.appinventor.components.runtime.errors.YailRuntimeError;
 import com.google.appinventor.components.runtime.util.AsyncCallbackPair;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.JsonUtil;
+import com.google.appinventor.components.runtime.util.RuntimeExecutor;
 import com.google.appinventor.components.runtime.util.WebServiceUtil;
 import org.apache.http.message.BasicNameValuePair;
 import org.json.JSONArray;
@@ -78,7 +79,7 @@ public class TinyWebDB extends AndroidNonvisibleComponent implements Component {
 
     @SimpleFunction
     public void StoreValue(final String tag, final Object valueToStore) {
-        AsynchUtil.runAsynchronously(new Runnable() {
+        AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_NORMAL, new Runnable() {
             public void run() {
                 TinyWebDB.this.postStoreValue(tag, valueToStore);
             }
@@ -101,7 +102,7 @@ public class TinyWebDB extends AndroidNonvisibleComponent implements Component {
 
     @SimpleFunction
     public void GetValue(final String tag) {
-        AsynchUtil.runAsynchronously(new Runnable() {
+        AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_NORMAL, new Runnable() {
             public void run() {
                 TinyWebDB.this.postGetValue(tag);
             }
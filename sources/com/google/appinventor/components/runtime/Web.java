@@ -22,35 +22,43 @@ import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
 import com.google.appinventor.components.runtime.util.FileUtil.FileException;
 import com.google.appinventor.components.runtime.util.GingerbreadUtil;
+import com.google.appinventor.components.runtime.util.HttpTransport;
+import com.google.appinventor.components.runtime.util.IOUtils;
 import com.google.appinventor.components.runtime.util.JsonUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.NanoHTTPD;
+import com.google.appinventor.components.runtime.util.RuntimeExecutor;
 import com.google.appinventor.components.runtime.util.SdkLevel;
 import com.google.appinventor.components.runtime.util.YailList;
 import io.fabric.sdk.android.services.network.HttpRequest;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.CookieHandler;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.ProtocolException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import okhttp3.CacheControl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.json.JSONException;
 import org.json.XML;
 
-@DesignerComponent(category = ComponentCategory.CONNECTIVITY, description = "Non-visible component that provides functions for HTTP GET, POST, PUT, and DELETE requests.", docUri = "storage/web", iconName = "images/web.png", nonVisible = true, version = 5)
+@DesignerComponent(category = ComponentCategory.CONNECTIVITY, description = "Non-visible component that provides functions for HTTP GET, POST, PUT, and DELETE requests.", docUri = "storage/web", iconName = "images/web.png", nonVisible = true, version = 7)
 @UsesLibraries(libraries = "json.jar")
 @SimpleObject
 @UsesPermissions(permissionNames = "android.permission.INTERNET,android.permission.WRITE_EXTERNAL_STORAGE,android.permission.READ_EXTERNAL_STORAGE")
@@ -59,11 +67,16 @@ public class Web extends AndroidNonvisibleComponent implements Component {
     private static final Map<String, String> mimeTypeToExtension = Maps.newHashMap();
     private final Activity activity;
     private boolean allowCookies;
+    private int cacheHits;
+    private int cacheMisses;
     private final CookieHandler cookieHandler;
+    private int maxConcurrentRequests;
     private YailList requestHeaders;
     private String responseFileName;
     private boolean saveResponse;
+    private boolean staleWhileRevalidate;
     private String urlString;
+    private boolean useCache;
 
     static class BuildRequestDataException extends Exception {
         final int errorNumber;
@@ -81,14 +94,19 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         final Map<String, List<String>> requestHeaders;
         final String responseFileName;
         final boolean saveResponse;
-        final URL url = new URL(this.urlString);
+        final boolean staleWhileRevalidate;
+        final URL url;
         final String urlString;
+        final boolean useCache;
 
-        CapturedProperties(Web web) throws MalformedURLException, InvalidRequestHeadersException {
-            this.urlString = web.urlString;
+        CapturedProperties(Web web, String urlString) throws MalformedURLException, InvalidRequestHeadersException {
+            this.urlString = urlString;
+            this.url = new URL(urlString);
             this.allowCookies = web.allowCookies;
             this.saveResponse = web.saveResponse;
             this.responseFileName = web.responseFileName;
+            this.useCache = web.useCache;
+            this.staleWhileRevalidate = web.staleWhileRevalidate;
             this.requestHeaders = Web.processRequestHeaders(web.requestHeaders);
             Map<String, List<String>> cookiesTemp = null;
             if (this.allowCookies && web.cookieHandler != null) {
@@ -102,6 +120,41 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         }
     }
 
+    private class GetAllBatch implements Runnable {
+        private int next;
+        private int remaining;
+        private final CapturedProperties[] requests;
+        private final Object[] results;
+
+        GetAllBatch(CapturedProperties[] requests) {
+            this.requests = requests;
+            this.results = new Object[requests.length];
+            this.remaining = requests.length;
+        }
+
+        public void run() {
+            while (true) {
+                int index;
+                boolean done;
+                synchronized (this) {
+                    if (this.next >= this.requests.length) {
+                        return;
+                    }
+                    index = this.next;
+                    this.next = index + 1;
+                }
+                this.results[index] = Web.this.performGetText(this.requests[index]);
+                synchronized (this) {
+                    this.remaining--;
+                    done = this.remaining == 0;
+                }
+                if (done) {
+                    Web.this.dispatchGotAllText(YailList.makeList(this.results));
+                }
+            }
+        }
+    }
+
     private static class InvalidRequestHeadersException extends Exception {
         final int errorNumber;
         final int index;
@@ -132,6 +185,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         this.urlString = "";
         this.requestHeaders = new YailList();
         this.responseFileName = "";
+        this.maxConcurrentRequests = 4;
         this.activity = container.$context();
         this.cookieHandler = SdkLevel.getLevel() >= 9 ? GingerbreadUtil.newCookieManager() : null;
     }
@@ -141,6 +195,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         this.urlString = "";
         this.requestHeaders = new YailList();
         this.responseFileName = "";
+        this.maxConcurrentRequests = 4;
         this.activity = null;
         this.cookieHandler = null;
     }
@@ -207,6 +262,62 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         this.responseFileName = responseFileName;
     }
 
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "Whether responses should be stored in and served from the HTTP cache. Cached responses follow the Cache-Control, ETag and Last-Modified headers sent by the server.")
+    public boolean UseCache() {
+        return this.useCache;
+    }
+
+    @DesignerProperty(defaultValue = "false", editorType = "boolean")
+    @SimpleProperty
+    public void UseCache(boolean useCache) {
+        this.useCache = useCache;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "If UseCache is true, whether Get should trigger GotText immediately with a cached response, even a stale one, and then revalidate it with the server. GotText is triggered a second time only if the content changed.")
+    public boolean StaleWhileRevalidate() {
+        return this.staleWhileRevalidate;
+    }
+
+    @DesignerProperty(defaultValue = "false", editorType = "boolean")
+    @SimpleProperty
+    public void StaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of cached requests that were answered from the HTTP cache, either directly or after the server confirmed the cached copy was still current.")
+    public synchronized int CacheHits() {
+        return this.cacheHits;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The number of cached requests that had to download the response from the server.")
+    public synchronized int CacheMisses() {
+        return this.cacheMisses;
+    }
+
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR, description = "The largest number of requests that GetAll runs at the same time.")
+    public int MaxConcurrentRequests() {
+        return this.maxConcurrentRequests;
+    }
+
+    @DesignerProperty(defaultValue = "4", editorType = "non_negative_integer")
+    @SimpleProperty
+    public void MaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    }
+
+    @SimpleFunction(description = "Removes all responses from the HTTP cache and resets CacheHits and CacheMisses.")
+    public void ClearCache() {
+        synchronized (this) {
+            this.cacheHits = 0;
+            this.cacheMisses = 0;
+        }
+        try {
+            HttpTransport.clearCache(this.activity);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to clear the HTTP cache", e);
+        }
+    }
+
     @SimpleFunction(description = "Clears all cookies for this Web component.")
     public void ClearCookies() {
         if (this.cookieHandler != null) {
@@ -221,7 +332,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         String METHOD = "Get";
         final CapturedProperties webProps = capturePropertyValues("Get");
         if (webProps != null) {
-            AsynchUtil.runAsynchronously(new Runnable() {
+            AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_NORMAL, new Runnable() {
                 public void run() {
                     try {
                         Web.this.performRequest(webProps, null, null, HttpRequest.METHOD_GET);
@@ -238,6 +349,27 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         }
     }
 
+    @SimpleFunction(description = "Performs an HTTP GET request for each URL in the list, running up to MaxConcurrentRequests of them at the same time. The RequestHeaders, AllowCookies and UseCache properties apply to every request.<br>When all of the requests have finished, the GotAllText event will be triggered with the results in the same order as the list.")
+    public void GetAll(YailList urls) {
+        String METHOD = "GetAll";
+        CapturedProperties[] requests = new CapturedProperties[urls.size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = capturePropertyValues("GetAll", urls.getString(i));
+            if (requests[i] == null) {
+                return;
+            }
+        }
+        if (requests.length == 0) {
+            GotAllText(YailList.makeEmptyList());
+            return;
+        }
+        GetAllBatch batch = new GetAllBatch(requests);
+        int workers = Math.min(this.maxConcurrentRequests, requests.length);
+        for (int i2 = 0; i2 < workers; i2++) {
+            AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_NORMAL, batch);
+        }
+    }
+
     @SimpleFunction(description = "Performs an HTTP POST request using the Url property and the specified text.<br>The characters of the text are encoded using UTF-8 encoding.<br>If the SaveResponse property is true, the response will be saved in a file and the GotFile event will be triggered. The responseFileName property can be used to specify the name of the file.<br>If the SaveResponse property is false, the GotText event will be triggered.")
     public void PostText(String text) {
         requestTextImpl(text, "UTF-8", "PostText", HttpRequest.METHOD_POST);
@@ -253,7 +385,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         String METHOD = "PostFile";
         final CapturedProperties webProps = capturePropertyValues("PostFile");
         if (webProps != null) {
-            AsynchUtil.runAsynchronously(new Runnable() {
+            AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_BACKGROUND, new Runnable() {
                 public void run() {
                     try {
                         Web.this.performRequest(webProps, null, path, HttpRequest.METHOD_POST);
@@ -284,7 +416,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         String METHOD = "PutFile";
         final CapturedProperties webProps = capturePropertyValues("PutFile");
         if (webProps != null) {
-            AsynchUtil.runAsynchronously(new Runnable() {
+            AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_BACKGROUND, new Runnable() {
                 public void run() {
                     try {
                         Web.this.performRequest(webProps, null, path, HttpRequest.METHOD_PUT);
@@ -305,7 +437,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         String METHOD = "Delete";
         final CapturedProperties webProps = capturePropertyValues("Delete");
         if (webProps != null) {
-            AsynchUtil.runAsynchronously(new Runnable() {
+            AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_NORMAL, new Runnable() {
                 public void run() {
                     try {
                         Web.this.performRequest(webProps, null, null, HttpRequest.METHOD_DELETE);
@@ -328,7 +460,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
             final String str2 = text;
             final String str3 = functionName;
             final String str4 = httpVerb;
-            AsynchUtil.runAsynchronously(new Runnable() {
+            AsynchUtil.runAsynchronously(this, RuntimeExecutor.PRIORITY_NORMAL, new Runnable() {
                 public void run() {
                     try {
                         byte[] requestData;
@@ -359,6 +491,11 @@ public class Web extends AndroidNonvisibleComponent implements Component {
         EventDispatcher.dispatchEvent(this, "GotText", url, Integer.valueOf(responseCode), responseType, responseContent);
     }
 
+    @SimpleEvent(description = "Event indicating that a GetAll request has finished. The results are a list with one entry per requested URL, in the same order. Each entry is a list of the url, the response code, the response type and the response content. If a request could not be made, its response code is 0, its response type is empty and its response content describes the error.")
+    public void GotAllText(YailList results) {
+        EventDispatcher.dispatchEvent(this, "GotAllText", results);
+    }
+
     @SimpleEvent
     public void GotFile(String url, int responseCode, String responseType, String fileName) {
         EventDispatcher.dispatchEvent(this, "GotFile", url, Integer.valueOf(responseCode), responseType, fileName);
@@ -455,22 +592,49 @@ public class Web extends AndroidNonvisibleComponent implements Component {
     }
 
     private void performRequest(CapturedProperties webProps, byte[] postData, String postFile, String httpVerb) throws IOException {
-        HttpURLConnection connection = openConnection(webProps, httpVerb);
-        if (connection != null) {
-            if (postData != null) {
-                try {
-                    writeRequestData(connection, postData);
-                } catch (Throwable th) {
-                    connection.disconnect();
+        Response response;
+        OkHttpClient client = webProps.useCache ? HttpTransport.getCachingClient(this.activity) : HttpTransport.getClient();
+        String cachedContent = null;
+        String cachedType = null;
+        int cachedCode = 0;
+        if (webProps.useCache && webProps.staleWhileRevalidate && !webProps.saveResponse && httpVerb.equals(HttpRequest.METHOD_GET)) {
+            Response cached = HttpTransport.execute(client, buildRequest(webProps, httpVerb, null).newBuilder().cacheControl(CacheControl.FORCE_CACHE).build());
+            try {
+                if (cached.cacheResponse() != null) {
+                    cachedCode = cached.code();
+                    cachedType = getResponseType(cached);
+                    cachedContent = getResponseContent(cached);
+                    recordCacheResult(true);
+                    dispatchGotText(webProps.urlString, cachedCode, cachedType, cachedContent);
                 }
+            } finally {
+                cached.close();
+            }
+        }
+        InputStream in = null;
+        RequestBody body = null;
+        try {
+            if (postData != null) {
+                body = RequestBody.create(getRequestContentType(webProps), postData);
             } else if (postFile != null) {
-                writeRequestFile(connection, postFile);
+                in = MediaUtil.openMedia(this.form, postFile);
+                body = HttpTransport.streamBody(getRequestContentType(webProps), in, this.form, postFile);
+            }
+            response = HttpTransport.execute(client, buildRequest(webProps, httpVerb, body));
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+        try {
+            final int responseCode = response.code();
+            final String responseType = getResponseType(response);
+            if (webProps.useCache && cachedContent == null) {
+                recordCacheResult(HttpTransport.isCacheHit(response));
             }
-            final int responseCode = connection.getResponseCode();
-            final String responseType = getResponseType(connection);
-            processResponseCookies(connection);
+            processResponseCookies(response);
             if (this.saveResponse) {
-                final String path = saveResponseContent(connection, webProps.responseFileName, responseType);
+                final String path = saveResponseContent(response, webProps.responseFileName, responseType);
                 final CapturedProperties capturedProperties = webProps;
                 this.activity.runOnUiThread(new Runnable() {
                     public void run() {
@@ -478,142 +642,161 @@ public class Web extends AndroidNonvisibleComponent implements Component {
                     }
                 });
             } else {
-                final String responseContent = getResponseContent(connection);
-                final CapturedProperties capturedProperties2 = webProps;
-                final int i = responseCode;
-                final String str = responseType;
-                this.activity.runOnUiThread(new Runnable() {
-                    public void run() {
-                        Web.this.GotText(capturedProperties2.urlString, i, str, responseContent);
-                    }
-                });
+                String responseContent = getResponseContent(response);
+                if (cachedContent == null || cachedCode != responseCode || !cachedType.equals(responseType) || !cachedContent.equals(responseContent)) {
+                    dispatchGotText(webProps.urlString, responseCode, responseType, responseContent);
+                }
             }
-            connection.disconnect();
+        } finally {
+            response.close();
         }
     }
 
-    private static HttpURLConnection openConnection(CapturedProperties webProps, String httpVerb) throws IOException, ClassCastException, ProtocolException {
-        HttpURLConnection connection = (HttpURLConnection) webProps.url.openConnection();
-        if (httpVerb.equals(HttpRequest.METHOD_PUT) || httpVerb.equals(HttpRequest.METHOD_DELETE)) {
-            connection.setRequestMethod(httpVerb);
+    /* access modifiers changed from: private */
+    public YailList performGetText(CapturedProperties webProps) {
+        try {
+            Response response = HttpTransport.execute(webProps.useCache ? HttpTransport.getCachingClient(this.activity) : HttpTransport.getClient(), buildRequest(webProps, HttpRequest.METHOD_GET, null));
+            try {
+                if (webProps.useCache) {
+                    recordCacheResult(HttpTransport.isCacheHit(response));
+                }
+                processResponseCookies(response);
+                return YailList.makeList(new Object[]{webProps.urlString, Integer.valueOf(response.code()), getResponseType(response), getResponseContent(response)});
+            } finally {
+                response.close();
+            }
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "ERROR_UNABLE_TO_GET " + webProps.urlString, e);
+            return YailList.makeList(new Object[]{webProps.urlString, Integer.valueOf(0), "", e.getMessage() != null ? e.getMessage() : e.toString()});
         }
+    }
+
+    /* access modifiers changed from: private */
+    public void dispatchGotAllText(final YailList results) {
+        this.activity.runOnUiThread(new Runnable() {
+            public void run() {
+                Web.this.GotAllText(results);
+            }
+        });
+    }
+
+    private void dispatchGotText(final String url, final int responseCode, final String responseType, final String responseContent) {
+        this.activity.runOnUiThread(new Runnable() {
+            public void run() {
+                Web.this.GotText(url, responseCode, responseType, responseContent);
+            }
+        });
+    }
+
+    private synchronized void recordCacheResult(boolean hit) {
+        if (hit) {
+            this.cacheHits++;
+        } else {
+            this.cacheMisses++;
+        }
+    }
+
+    private static Request buildRequest(CapturedProperties webProps, String httpVerb, RequestBody body) {
+        Request.Builder builder = new Request.Builder().url(webProps.url);
         for (Entry<String, List<String>> header : webProps.requestHeaders.entrySet()) {
             String name = (String) header.getKey();
             for (String value : (List) header.getValue()) {
-                connection.addRequestProperty(name, value);
+                builder.addHeader(name, value);
             }
         }
         if (webProps.cookies != null) {
             for (Entry<String, List<String>> cookie : webProps.cookies.entrySet()) {
-                name = (String) cookie.getKey();
+                String name2 = (String) cookie.getKey();
                 for (String value2 : (List) cookie.getValue()) {
-                    connection.addRequestProperty(name, value2);
+                    builder.addHeader(name2, value2);
                 }
             }
         }
-        return connection;
-    }
-
-    private static void writeRequestData(HttpURLConnection connection, byte[] postData) throws IOException {
-        connection.setDoOutput(true);
-        connection.setFixedLengthStreamingMode(postData.length);
-        BufferedOutputStream out = new BufferedOutputStream(connection.getOutputStream());
-        try {
-            out.write(postData, 0, postData.length);
-            out.flush();
-        } finally {
-            out.close();
+        if (body == null && !httpVerb.equals(HttpRequest.METHOD_DELETE)) {
+            return builder.get().build();
         }
+        return builder.method(httpVerb, body).build();
     }
 
-    private void writeRequestFile(HttpURLConnection connection, String path) throws IOException {
-        BufferedInputStream in = new BufferedInputStream(MediaUtil.openMedia(this.form, path));
-        BufferedOutputStream out;
-        try {
-            connection.setDoOutput(true);
-            connection.setChunkedStreamingMode(0);
-            out = new BufferedOutputStream(connection.getOutputStream());
-            while (true) {
-                int b = in.read();
-                if (b == -1) {
-                    out.flush();
-                    out.close();
-                    in.close();
-                    return;
-                }
-                out.write(b);
+    private static MediaType getRequestContentType(CapturedProperties webProps) {
+        for (Entry<String, List<String>> header : webProps.requestHeaders.entrySet()) {
+            if (HttpRequest.HEADER_CONTENT_TYPE.equalsIgnoreCase((String) header.getKey()) && !((List) header.getValue()).isEmpty()) {
+                return MediaType.parse((String) ((List) header.getValue()).get(0));
             }
-        } catch (Throwable th) {
-            in.close();
         }
+        return MediaType.parse(HttpRequest.CONTENT_TYPE_FORM);
     }
 
-    private static String getResponseType(HttpURLConnection connection) {
-        String responseType = connection.getContentType();
+    private static String getResponseType(Response response) {
+        String responseType = response.header(HttpRequest.HEADER_CONTENT_TYPE);
         return responseType != null ? responseType : "";
     }
 
-    private void processResponseCookies(HttpURLConnection connection) {
+    private void processResponseCookies(Response response) {
         if (this.allowCookies && this.cookieHandler != null) {
             try {
-                this.cookieHandler.put(connection.getURL().toURI(), connection.getHeaderFields());
-            } catch (URISyntaxException e) {
-            } catch (IOException e2) {
+                this.cookieHandler.put(response.request().url().uri(), response.headers().toMultimap());
+            } catch (IOException e) {
             }
         }
     }
 
-    private static String getResponseContent(HttpURLConnection connection) throws IOException {
-        String encoding = connection.getContentEncoding();
-        if (encoding == null) {
-            encoding = "UTF-8";
+    private static String getResponseContent(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return "";
         }
-        InputStreamReader reader = new InputStreamReader(getConnectionStream(connection), encoding);
+        String charset = getResponseCharset(response.header(HttpRequest.HEADER_CONTENT_TYPE));
+        InputStream in = body.byteStream();
         try {
-            int contentLength = connection.getContentLength();
-            StringBuilder sb = contentLength != -1 ? new StringBuilder(contentLength) : new StringBuilder();
-            char[] buf = new char[1024];
-            while (true) {
-                int read = reader.read(buf);
-                if (read == -1) {
-                    break;
-                }
-                sb.append(buf, 0, read);
-            }
-            String stringBuilder = sb.toString();
-            return stringBuilder;
+            long contentLength = body.contentLength();
+            ByteArrayOutputStream out = new ByteArrayOutputStream((contentLength <= 0 || contentLength > 2147483647L) ? IOUtils.BUFFER_SIZE : (int) contentLength);
+            IOUtils.copy(in, out);
+            return out.toString(charset);
         } finally {
-            reader.close();
+            in.close();
         }
     }
 
-    private static String saveResponseContent(HttpURLConnection connection, String responseFileName, String responseType) throws IOException {
-        File file = createFile(responseFileName, responseType);
-        BufferedInputStream in = new BufferedInputStream(getConnectionStream(connection), 4096);
-        BufferedOutputStream out;
-        try {
-            out = new BufferedOutputStream(new FileOutputStream(file), 4096);
-            while (true) {
-                int b = in.read();
-                if (b == -1) {
-                    out.flush();
-                    out.close();
-                    in.close();
-                    return file.getAbsolutePath();
+    static String getResponseCharset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String charset = trimmed.substring(8).trim();
+                    if (charset.length() > 1 && charset.startsWith("\"") && charset.endsWith("\"")) {
+                        charset = charset.substring(1, charset.length() - 1);
+                    }
+                    try {
+                        if (Charset.isSupported(charset)) {
+                            return charset;
+                        }
+                    } catch (IllegalCharsetNameException e) {
+                    }
+                    Log.w(LOG_TAG, "Unsupported response charset " + charset + ", using UTF-8");
                 }
-                out.write(b);
             }
-        } catch (Throwable th) {
-            in.close();
         }
+        return "UTF-8";
     }
 
-    private static InputStream getConnectionStream(HttpURLConnection connection) {
+    private static String saveResponseContent(Response response, String responseFileName, String responseType) throws IOException {
+        File file = createFile(responseFileName, responseType);
+        ResponseBody body = response.body();
+        InputStream in = body != null ? body.byteStream() : null;
+        FileOutputStream out = new FileOutputStream(file);
         try {
-            return connection.getInputStream();
-        } catch (IOException e) {
-            return connection.getErrorStream();
+            if (in != null) {
+                IOUtils.copy(in, out);
+            }
+            out.flush();
+        } finally {
+            out.close();
+            if (in != null) {
+                in.close();
+            }
         }
+        return file.getAbsolutePath();
     }
 
     private static File createFile(String fileName, String responseType) throws IOException, FileException {
@@ -663,10 +846,14 @@ public class Web extends AndroidNonvisibleComponent implements Component {
     }
 
     private CapturedProperties capturePropertyValues(String functionName) {
+        return capturePropertyValues(functionName, this.urlString);
+    }
+
+    private CapturedProperties capturePropertyValues(String functionName, String urlString) {
         try {
-            return new CapturedProperties(this);
+            return new CapturedProperties(this, urlString);
         } catch (MalformedURLException e) {
-            this.form.dispatchErrorOccurredEvent(this, functionName, ErrorMessages.ERROR_WEB_MALFORMED_URL, this.urlString);
+            this.form.dispatchErrorOccurredEvent(this, functionName, ErrorMessages.ERROR_WEB_MALFORMED_URL, urlString);
         } catch (InvalidRequestHeadersException e2) {
             this.form.dispatchErrorOccurredEvent(this, functionName, e2.errorNumber, Integer.valueOf(e2.index));
         }
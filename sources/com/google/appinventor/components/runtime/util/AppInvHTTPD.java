@@ -261,6 +261,8 @@ public class AppInvHTTPD extends NanoHTTPD {
             return response;
         } else if (uri.equals("/_extensions")) {
             return processLoadExtensionsRequest(parms);
+        } else if (uri.equals("/_metrics")) {
+            return processMetricsRequest(parms);
         } else {
             File fileFrom;
             String filename;
@@ -392,6 +394,19 @@ public class AppInvHTTPD extends NanoHTTPD {
         }
     }
 
+    private Response processMetricsRequest(Properties parms) {
+        String enable = parms.getProperty("enable");
+        if (enable != null) {
+            EventMetrics.setEnabled(Boolean.parseBoolean(enable));
+        }
+        String metrics = EventMetrics.toJSONString();
+        if (Boolean.parseBoolean(parms.getProperty("reset", "false"))) {
+            EventMetrics.reset();
+            RuntimeExecutor.getInstance().resetStats();
+        }
+        return json(metrics);
+    }
+
     private void adoptMainThreadClassLoader() {
         ClassLoader mainClassLoader = Looper.getMainLooper().getThread().getContextClassLoader();
         Thread myThread = Thread.currentThread();
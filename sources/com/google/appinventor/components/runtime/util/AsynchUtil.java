@@ -1,14 +1,19 @@
 package com.google.appinventor.components.runtime.util;
 
 import android.os.Handler;
+import com.google.appinventor.components.runtime.util.RuntimeExecutor.Task;
 
 public class AsynchUtil {
     public static void runAsynchronously(Runnable call) {
-        new Thread(call).start();
+        RuntimeExecutor.getInstance().submit(null, RuntimeExecutor.PRIORITY_NORMAL, call);
+    }
+
+    public static Task runAsynchronously(Object owner, int priority, Runnable call) {
+        return RuntimeExecutor.getInstance().submit(owner, priority, call);
     }
 
     public static void runAsynchronously(final Handler androidUIHandler, final Runnable call, final Runnable callback) {
-        new Thread(new Runnable() {
+        runAsynchronously(new Runnable() {
 
             /* renamed from: com.google.appinventor.components.runtime.util.AsynchUtil$1$1 */
             class C04691 implements Runnable {
@@ -26,6 +31,16 @@ public class AsynchUtil {
                     androidUIHandler.post(new C04691());
                 }
             }
-        }).start();
+        });
+    }
+
+    public static void runOnNewThread(Runnable call) {
+        new Thread(call).start();
+    }
+
+    public static void cancelPending(Object scope) {
+        if (RuntimeExecutor.isStarted()) {
+            RuntimeExecutor.getInstance().cancelAll(scope);
+        }
     }
 }
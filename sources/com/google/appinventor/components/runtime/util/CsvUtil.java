@@ -1,19 +1,18 @@
 package com.google.appinventor.components.runtime.util;
 
 import com.google.appinventor.components.runtime.collect.Lists;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Pattern;
 
 public final class CsvUtil {
 
     private static class CsvParser implements Iterator<List<String>> {
-        private final Pattern ESCAPED_QUOTE_PATTERN = Pattern.compile("\"\"");
-        private final char[] buf = new char[10240];
+        private char[] buf = new char[10240];
         private int cellLength = -1;
         private int delimitedCellLength = -1;
         private final Reader in;
@@ -53,7 +52,7 @@ public final class CsvUtil {
                 if (this.buf[this.pos] != '\"') {
                     result.add(new String(this.buf, this.pos, this.cellLength).trim());
                 } else {
-                    result.add(this.ESCAPED_QUOTE_PATTERN.matcher(new String(this.buf, this.pos + 1, this.cellLength - 2)).replaceAll("\"").trim());
+                    result.add(unescapeQuotes(this.buf, this.pos + 1, this.cellLength - 2).trim());
                 }
                 if (this.delimitedCellLength <= 0 || this.buf[(this.pos + this.delimitedCellLength) - 1] != ',') {
                     trailingComma = false;
@@ -83,6 +82,10 @@ public final class CsvUtil {
         private int indexAfterCompactionAndFilling(int i) {
             if (this.pos > 0) {
                 i = compact(i);
+            } else if (this.limit == this.buf.length) {
+                char[] grown = new char[(this.buf.length * 2)];
+                System.arraycopy(this.buf, 0, grown, 0, this.limit);
+                this.buf = grown;
             }
             fill();
             return i;
@@ -135,12 +138,11 @@ public final class CsvUtil {
                     i = checkedIndex(i + 1);
                     if (i == this.limit || this.buf[i] != '\"') {
                         this.cellLength = i - this.pos;
+                        return findDelimOrEnd(i);
                     }
                 }
                 i++;
             }
-            this.cellLength = i - this.pos;
-            return findDelimOrEnd(i);
         }
 
         private boolean findDelimOrEnd(int i) {
@@ -156,13 +158,14 @@ public final class CsvUtil {
                     case '\t':
                     case ' ':
                         i++;
+                        break;
                     case '\n':
                     case ',':
                         this.delimitedCellLength = checkedIndex(i + 1) - this.pos;
                         return true;
                     case '\r':
                         int j = checkedIndex(i + 1);
-                        if (this.buf[j] == '\n') {
+                        if (j < this.limit && this.buf[j] == '\n') {
                             j = checkedIndex(j + 1);
                         }
                         this.delimitedCellLength = j - this.pos;
@@ -198,7 +201,7 @@ public final class CsvUtil {
                     case '\r':
                         this.cellLength = i - this.pos;
                         int j = checkedIndex(i + 1);
-                        if (this.buf[j] == '\n') {
+                        if (j < this.limit && this.buf[j] == '\n') {
                             j = checkedIndex(j + 1);
                         }
                         this.delimitedCellLength = j - this.pos;
@@ -221,6 +224,74 @@ public final class CsvUtil {
                 throw this.lastException;
             }
         }
+
+        private static String unescapeQuotes(char[] chars, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            while (i < end - 1 && !(chars[i] == '\"' && chars[i + 1] == '\"')) {
+                i++;
+            }
+            if (i >= end - 1) {
+                return new String(chars, offset, length);
+            }
+            StringBuilder sb = new StringBuilder(length);
+            sb.append(chars, offset, i - offset);
+            while (i < end) {
+                char c = chars[i];
+                sb.append(c);
+                if (c == '\"' && i + 1 < end && chars[i + 1] == '\"') {
+                    i++;
+                }
+                i++;
+            }
+            return sb.toString();
+        }
+    }
+
+    public static final class CsvReader implements Closeable {
+        private final Reader in;
+        private final CsvParser parser;
+
+        public CsvReader(Reader in) {
+            this.in = in;
+            this.parser = new CsvParser(in);
+        }
+
+        public YailList readRow() throws Exception {
+            if (this.parser.hasNext()) {
+                return YailList.makeList(this.parser.next());
+            }
+            this.parser.throwAnyProblem();
+            return null;
+        }
+
+        public YailList readRows(int maxRows) throws Exception {
+            List rows = new ArrayList();
+            while (rows.size() < maxRows) {
+                YailList row = readRow();
+                if (row == null) {
+                    break;
+                }
+                rows.add(row);
+            }
+            return YailList.makeList(rows);
+        }
+
+        public boolean hasMoreRows() throws Exception {
+            if (this.parser.hasNext()) {
+                return true;
+            }
+            this.parser.throwAnyProblem();
+            return false;
+        }
+
+        public long getCharPosition() {
+            return this.parser.getCharPosition();
+        }
+
+        public void close() throws IOException {
+            this.in.close();
+        }
     }
 
     private CsvUtil() {
@@ -0,0 +1,62 @@
+package com.google.appinventor.components.runtime.util;
+
+import gnu.mapping.Environment;
+import gnu.mapping.Location;
+import gnu.mapping.Symbol;
+import java.util.HashMap;
+
+public final class EnvironmentIndex {
+    private final Environment environment;
+    private final HashMap<Symbol, Location> locations = new HashMap();
+
+    public EnvironmentIndex(Environment environment) {
+        this.environment = environment;
+    }
+
+    public Environment getEnvironment() {
+        return this.environment;
+    }
+
+    public synchronized Location getLocation(Symbol name) {
+        Location location = (Location) this.locations.get(name);
+        if (location != null && location.isBound()) {
+            return location;
+        }
+        location = this.environment.lookup(name);
+        if (location == null || !location.isBound()) {
+            this.locations.remove(name);
+            return null;
+        }
+        this.locations.put(name, location);
+        return location;
+    }
+
+    public boolean isBound(Symbol name) {
+        return getLocation(name) != null;
+    }
+
+    public Object get(Symbol name, Object defaultValue) {
+        Location location = getLocation(name);
+        return location == null ? defaultValue : location.get(defaultValue);
+    }
+
+    public synchronized void put(Symbol name, Object value) {
+        Location location = (Location) this.locations.get(name);
+        if (location == null || !location.isBound() || location.isConstant()) {
+            this.environment.put(name, value);
+            location = this.environment.lookup(name);
+            if (location == null) {
+                this.locations.remove(name);
+            } else {
+                this.locations.put(name, location);
+            }
+            return;
+        }
+        location.set(value);
+    }
+
+    public synchronized void remove(Symbol name) {
+        this.locations.remove(name);
+        this.environment.remove(name);
+    }
+}
@@ -0,0 +1,170 @@
+package com.google.appinventor.components.runtime.util;
+
+import android.os.Looper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class EventMetrics {
+    private static final String LOG_TAG = "EventMetrics";
+    private static final int SAMPLE_WINDOW = 256;
+    private static volatile boolean enabled;
+    private static final LinkedHashMap<String, Stats> statsMap = new LinkedHashMap();
+
+    public static final class Stats {
+        private long count;
+        private final String componentId;
+        private final String eventName;
+        private long maxNanos;
+        private final long[] samples = new long[EventMetrics.SAMPLE_WINDOW];
+        private int sampleCount;
+        private long totalNanos;
+        private long uiThreadNanos;
+
+        private Stats(String componentId, String eventName) {
+            this.componentId = componentId;
+            this.eventName = eventName;
+        }
+
+        /* access modifiers changed from: private */
+        public void record(long nanos, boolean uiThread) {
+            this.samples[(int) (this.count % ((long) EventMetrics.SAMPLE_WINDOW))] = nanos;
+            if (this.sampleCount < EventMetrics.SAMPLE_WINDOW) {
+                this.sampleCount++;
+            }
+            this.count++;
+            this.totalNanos += nanos;
+            if (uiThread) {
+                this.uiThreadNanos += nanos;
+            }
+            if (nanos > this.maxNanos) {
+                this.maxNanos = nanos;
+            }
+        }
+
+        public String getComponentId() {
+            return this.componentId;
+        }
+
+        public String getEventName() {
+            return this.eventName;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public double getTotalMillis() {
+            return ((double) this.totalNanos) / 1000000.0d;
+        }
+
+        public double getUiThreadMillis() {
+            return ((double) this.uiThreadNanos) / 1000000.0d;
+        }
+
+        public double getMaxMillis() {
+            return ((double) this.maxNanos) / 1000000.0d;
+        }
+
+        public double getPercentileMillis(double percentile) {
+            if (this.sampleCount == 0) {
+                return 0.0d;
+            }
+            long[] sorted = Arrays.copyOf(this.samples, this.sampleCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil((Math.min(Math.max(percentile, 0.0d), 100.0d) / 100.0d) * ((double) sorted.length)) - 1;
+            return ((double) sorted[Math.max(index, 0)]) / 1000000.0d;
+        }
+
+        /* access modifiers changed from: private */
+        public Stats copy() {
+            Stats stats = new Stats(this.componentId, this.eventName);
+            stats.count = this.count;
+            stats.maxNanos = this.maxNanos;
+            stats.sampleCount = this.sampleCount;
+            stats.totalNanos = this.totalNanos;
+            stats.uiThreadNanos = this.uiThreadNanos;
+            System.arraycopy(this.samples, 0, stats.samples, 0, EventMetrics.SAMPLE_WINDOW);
+            return stats;
+        }
+    }
+
+    private EventMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        EventMetrics.enabled = enabled;
+    }
+
+    public static void record(String componentId, String eventName, long nanos) {
+        boolean uiThread = Looper.myLooper() == Looper.getMainLooper();
+        String key = componentId + '$' + eventName;
+        synchronized (statsMap) {
+            Stats stats = (Stats) statsMap.get(key);
+            if (stats == null) {
+                stats = new Stats(componentId, eventName);
+                statsMap.put(key, stats);
+            }
+            stats.record(nanos, uiThread);
+        }
+    }
+
+    public static Stats getStats(String componentId, String eventName) {
+        Stats copy;
+        synchronized (statsMap) {
+            Stats stats = (Stats) statsMap.get(componentId + '$' + eventName);
+            copy = stats == null ? null : stats.copy();
+        }
+        return copy;
+    }
+
+    public static List<Stats> getAllStats() {
+        List<Stats> result = new ArrayList();
+        synchronized (statsMap) {
+            for (Stats stats : statsMap.values()) {
+                result.add(stats.copy());
+            }
+        }
+        return result;
+    }
+
+    public static void reset() {
+        synchronized (statsMap) {
+            statsMap.clear();
+        }
+    }
+
+    public static String toJSONString() {
+        JSONObject result = new JSONObject();
+        try {
+            JSONArray events = new JSONArray();
+            for (Stats stats : getAllStats()) {
+                JSONObject event = new JSONObject();
+                event.put("component", stats.getComponentId());
+                event.put("event", stats.getEventName());
+                event.put("count", stats.getCount());
+                event.put("totalMs", stats.getTotalMillis());
+                event.put("uiThreadMs", stats.getUiThreadMillis());
+                event.put("p50Ms", stats.getPercentileMillis(50.0d));
+                event.put("p99Ms", stats.getPercentileMillis(99.0d));
+                event.put("maxMs", stats.getMaxMillis());
+                events.put(event);
+            }
+            result.put("enabled", enabled);
+            result.put("events", events);
+            result.put("executor", RuntimeExecutor.getInstance().toJSONObject());
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Unable to write event metrics", e);
+        }
+        return result.toString();
+    }
+}
@@ -3,8 +3,6 @@ package com.google.appinventor.components.runtime.util;
 import android.os.Environment;
 import com.google.appinventor.components.runtime.Form;
 import com.google.appinventor.components.runtime.errors.RuntimeError;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -139,16 +137,7 @@ public class FileUtil {
     }
 
     private static void copy(InputStream in, OutputStream out) throws IOException {
-        OutputStream out2 = new BufferedOutputStream(out, 4096);
-        InputStream in2 = new BufferedInputStream(in, 4096);
-        while (true) {
-            int b = in2.read();
-            if (b == -1) {
-                out2.flush();
-                return;
-            }
-            out2.write(b);
-        }
+        IOUtils.copy(in, out);
     }
 
     public static File getPictureFile(String extension) throws IOException, FileException {
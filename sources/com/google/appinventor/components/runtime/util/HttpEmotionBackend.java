@@ -0,0 +1,86 @@
+package com.google.appinventor.components.runtime.util;
+
+import com.google.appinventor.components.runtime.Form;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public class HttpEmotionBackend implements IEmotionBackend {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private final String serverUrl;
+    private final String subscriptionKey;
+    private final int uploadByteBudget;
+
+    public HttpEmotionBackend(String serverUrl, String subscriptionKey, int uploadByteBudget) {
+        this.serverUrl = serverUrl;
+        this.subscriptionKey = subscriptionKey;
+        this.uploadByteBudget = uploadByteBudget;
+    }
+
+    public String getConfigurationKey() {
+        return this.uploadByteBudget + "|" + this.serverUrl;
+    }
+
+    public Result recognize(Form form, String picPath) throws IOException {
+        RequestBody body;
+        InputStream in = null;
+        if (this.uploadByteBudget > 0) {
+            body = RequestBody.create(OCTET_STREAM, MediaUtil.getCompressedJpeg(form, picPath, this.uploadByteBudget));
+        } else {
+            in = new BufferedInputStream(MediaUtil.openMedia(form, picPath), 8192);
+            body = HttpTransport.streamBody(OCTET_STREAM, in, form, picPath);
+        }
+        try {
+            Response response = HttpTransport.execute(new Request.Builder().url(this.serverUrl).header("Ocp-Apim-Subscription-Key", this.subscriptionKey).post(body).build());
+            try {
+                return parseResponse(response.code(), response.body() != null ? response.body().string() : "");
+            } finally {
+                response.close();
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    static Result parseResponse(int responseCode, String responseContent) {
+        String currentMostLikelyEmotion = "There is something wrong.";
+        double currentMostLikelyEmotionScore = 0.0d;
+        if (responseCode == 200) {
+            try {
+                JSONArray jSONArray = new JSONArray(responseContent);
+                if (jSONArray.length() != 1) {
+                    currentMostLikelyEmotion = "There are no face or more than one face in the picture. Please check the response content.";
+                } else {
+                    JSONObject face = jSONArray.getJSONObject(0);
+                    if (face.has("faceAttributes") && face.getJSONObject("faceAttributes").has("emotion")) {
+                        JSONObject emotions = face.getJSONObject("faceAttributes").getJSONObject("emotion");
+                        Iterator<String> emotionIterator = emotions.keys();
+                        while (emotionIterator.hasNext()) {
+                            String emotion = (String) emotionIterator.next();
+                            double score = emotions.getDouble(emotion);
+                            if (score > currentMostLikelyEmotionScore) {
+                                currentMostLikelyEmotion = emotion;
+                                currentMostLikelyEmotionScore = score;
+                            }
+                        }
+                    } else {
+                        currentMostLikelyEmotion = "Emotion info is not included in response content";
+                    }
+                }
+            } catch (JSONException e) {
+                currentMostLikelyEmotion = "There is something wrong. " + e.toString();
+            }
+        }
+        return new Result(responseCode, responseContent, currentMostLikelyEmotion, currentMostLikelyEmotionScore);
+    }
+}
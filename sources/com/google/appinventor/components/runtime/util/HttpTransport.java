@@ -0,0 +1,238 @@
+package com.google.appinventor.components.runtime.util;
+
+import android.content.Context;
+import com.google.appinventor.components.runtime.Form;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+public final class HttpTransport {
+    private static final String CACHE_DIRECTORY = "AI_HttpCache";
+    private static final long CACHE_MAX_BYTES = 10485760;
+    private static final long CONNECT_TIMEOUT_MILLIS = 20000;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    public static final int MAX_REQUESTS = 16;
+    public static final int MAX_REQUESTS_PER_HOST = 6;
+    private static final long READ_TIMEOUT_MILLIS = 30000;
+    private static final long WRITE_TIMEOUT_MILLIS = 30000;
+    private static Cache cache;
+    private static OkHttpClient cachingClient;
+    private static OkHttpClient client;
+    private static final Map<String, HostPermits> hostPermits = new HashMap();
+    /* access modifiers changed from: private */
+    public static final Semaphore requestPermits = new Semaphore(MAX_REQUESTS, true);
+
+    private static final class HostPermits {
+        final String host;
+        final Semaphore permits = new Semaphore(HttpTransport.MAX_REQUESTS_PER_HOST, true);
+        int users;
+
+        HostPermits(String host) {
+            this.host = host;
+        }
+    }
+
+    private static final class Permit {
+        private final HostPermits hostPermits;
+        private boolean released;
+
+        Permit(HostPermits hostPermits) {
+            this.hostPermits = hostPermits;
+        }
+
+        /* access modifiers changed from: package-private */
+        public synchronized void release() {
+            if (!this.released) {
+                this.released = true;
+                HttpTransport.requestPermits.release();
+                this.hostPermits.permits.release();
+                HttpTransport.releaseHost(this.hostPermits);
+            }
+        }
+    }
+
+    private static final class PermitResponseBody extends ResponseBody {
+        private final ResponseBody delegate;
+        /* access modifiers changed from: private */
+        public final Permit permit;
+        private BufferedSource source;
+
+        PermitResponseBody(ResponseBody delegate, Permit permit) {
+            this.delegate = delegate;
+            this.permit = permit;
+        }
+
+        public MediaType contentType() {
+            return this.delegate.contentType();
+        }
+
+        public long contentLength() {
+            return this.delegate.contentLength();
+        }
+
+        public synchronized BufferedSource source() {
+            if (this.source == null) {
+                this.source = Okio.buffer((Source) new ForwardingSource(this.delegate.source()) {
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            PermitResponseBody.this.permit.release();
+                        }
+                    }
+                });
+            }
+            return this.source;
+        }
+    }
+
+    private static final class StreamRequestBody extends RequestBody {
+        private final MediaType contentType;
+        private final Form form;
+        private InputStream in;
+        private final String mediaPath;
+
+        StreamRequestBody(MediaType contentType, InputStream in, Form form, String mediaPath) {
+            this.contentType = contentType;
+            this.in = in;
+            this.form = form;
+            this.mediaPath = mediaPath;
+        }
+
+        public MediaType contentType() {
+            return this.contentType;
+        }
+
+        public void writeTo(BufferedSink sink) throws IOException {
+            InputStream stream;
+            synchronized (this) {
+                stream = this.in;
+                this.in = null;
+            }
+            if (stream == null) {
+                stream = MediaUtil.openMedia(this.form, this.mediaPath);
+            }
+            Source source = Okio.source(stream);
+            try {
+                sink.writeAll(source);
+            } finally {
+                source.close();
+            }
+        }
+    }
+
+    private HttpTransport() {
+    }
+
+    public static synchronized OkHttpClient getClient() {
+        if (client == null) {
+            client = new OkHttpClient.Builder().connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES)).connectTimeout(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).readTimeout(READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).writeTimeout(WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).build();
+        }
+        return client;
+    }
+
+    public static synchronized OkHttpClient getCachingClient(Context context) {
+        if (cachingClient == null) {
+            cache = new Cache(new File(context.getCacheDir(), CACHE_DIRECTORY), CACHE_MAX_BYTES);
+            cachingClient = getClient().newBuilder().cache(cache).build();
+        }
+        return cachingClient;
+    }
+
+    public static void clearCache(Context context) throws IOException {
+        Cache httpCache;
+        synchronized (HttpTransport.class) {
+            getCachingClient(context);
+            httpCache = cache;
+        }
+        httpCache.evictAll();
+    }
+
+    public static boolean isCacheHit(Response response) {
+        if (response.cacheResponse() == null) {
+            return false;
+        }
+        return response.networkResponse() == null || response.networkResponse().code() == 304;
+    }
+
+    public static Response execute(Request request) throws IOException {
+        return execute(getClient(), request);
+    }
+
+    public static Response execute(OkHttpClient httpClient, Request request) throws IOException {
+        Permit permit = acquire(request);
+        boolean handedOff = false;
+        try {
+            Response response = httpClient.newCall(request).execute();
+            ResponseBody body = response.body();
+            if (body == null) {
+                return response;
+            }
+            Response build = response.newBuilder().body(new PermitResponseBody(body, permit)).build();
+            handedOff = true;
+            return build;
+        } finally {
+            if (!handedOff) {
+                permit.release();
+            }
+        }
+    }
+
+    private static Permit acquire(Request request) throws IOException {
+        HostPermits host = retainHost(request.url().host());
+        try {
+            host.permits.acquire();
+            try {
+                requestPermits.acquire();
+                return new Permit(host);
+            } catch (InterruptedException e) {
+                host.permits.release();
+                throw e;
+            }
+        } catch (InterruptedException e2) {
+            releaseHost(host);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + request.url());
+        }
+    }
+
+    private static synchronized HostPermits retainHost(String host) {
+        HostPermits permits = (HostPermits) hostPermits.get(host);
+        if (permits == null) {
+            permits = new HostPermits(host);
+            hostPermits.put(host, permits);
+        }
+        permits.users++;
+        return permits;
+    }
+
+    /* access modifiers changed from: private */
+    public static synchronized void releaseHost(HostPermits permits) {
+        permits.users--;
+        if (permits.users == 0) {
+            hostPermits.remove(permits.host);
+        }
+    }
+
+    public static RequestBody streamBody(MediaType contentType, InputStream in, Form form, String mediaPath) {
+        return new StreamRequestBody(contentType, in, form, mediaPath);
+    }
+}
@@ -0,0 +1,25 @@
+package com.google.appinventor.components.runtime.util;
+
+import com.google.appinventor.components.runtime.Form;
+import java.io.IOException;
+
+public interface IEmotionBackend {
+
+    public static class Result {
+        public final String mostLikelyEmotion;
+        public final double mostLikelyEmotionScore;
+        public final int responseCode;
+        public final String responseContent;
+
+        public Result(int responseCode, String responseContent, String mostLikelyEmotion, double mostLikelyEmotionScore) {
+            this.responseCode = responseCode;
+            this.responseContent = responseContent;
+            this.mostLikelyEmotion = mostLikelyEmotion;
+            this.mostLikelyEmotionScore = mostLikelyEmotionScore;
+        }
+    }
+
+    String getConfigurationKey();
+
+    Result recognize(Form form, String picPath) throws IOException;
+}
@@ -2,9 +2,16 @@ package com.google.appinventor.components.runtime.util;
 
 import android.util.Log;
 import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public final class IOUtils {
+    public static final int BUFFER_SIZE = 65536;
+
     public static void closeQuietly(String tag, Closeable closeable) {
         if (closeable != null) {
             try {
@@ -14,4 +21,36 @@ public final class IOUtils {
             }
         }
     }
+
+    public static long copy(InputStream in, OutputStream out) throws IOException {
+        long total = 0;
+        if (in.getClass() == FileInputStream.class && (out instanceof FileOutputStream)) {
+            total = transfer(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel());
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int read = in.read(buffer);
+            if (read == -1) {
+                return total;
+            }
+            out.write(buffer, 0, read);
+            total += (long) read;
+        }
+    }
+
+    private static long transfer(FileChannel source, FileChannel target) throws IOException {
+        long position = source.position();
+        long size = source.size();
+        long total = 0;
+        while (position < size) {
+            long transferred = source.transferTo(position, size - position, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            total += transferred;
+        }
+        source.position(position);
+        return total;
+    }
 }
@@ -1,6 +1,7 @@
 package com.google.appinventor.components.runtime.util;
 
 import android.graphics.Point;
+import android.media.MediaPlayer;
 import android.view.Display;
 
 public class JellybeanUtil {
@@ -10,4 +11,8 @@ public class JellybeanUtil {
     public static void getRealSize(Display display, Point outSize) {
         display.getRealSize(outSize);
     }
+
+    public static void setNextMediaPlayer(MediaPlayer mediaPlayer, MediaPlayer nextMediaPlayer) {
+        mediaPlayer.setNextMediaPlayer(nextMediaPlayer);
+    }
 }
@@ -5,6 +5,8 @@ import android.util.Base64;
 import android.util.Log;
 import com.google.appinventor.components.runtime.errors.YailRuntimeError;
 import gnu.lists.FString;
+import gnu.lists.LList;
+import gnu.lists.Pair;
 import gnu.math.IntFraction;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -14,6 +16,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -33,6 +37,297 @@ public class JsonUtil {
         }
     }
 
+    private static final class JsonParser {
+        private final String json;
+        private final int length;
+        private int pos;
+
+        JsonParser(String json) {
+            this.json = json;
+            this.length = json.length();
+        }
+
+        /* access modifiers changed from: 0000 */
+        public Object readTopLevelValue() throws JSONException {
+            skipWhitespace();
+            if (this.pos >= this.length) {
+                throw syntaxError("End of input");
+            }
+            char c = this.json.charAt(this.pos);
+            if (c == '"') {
+                this.pos++;
+                return readString();
+            }
+            if (c == '[' || c == '{') {
+                return readValue();
+            }
+            Object literal = readLiteral();
+            if (literal == JSONObject.NULL) {
+                return null;
+            }
+            return literal;
+        }
+
+        private Object readValue() throws JSONException {
+            skipWhitespace();
+            if (this.pos >= this.length) {
+                throw syntaxError("End of input");
+            }
+            char c = this.json.charAt(this.pos);
+            if (c == '"') {
+                this.pos++;
+                String value = readString();
+                if (value.equalsIgnoreCase("false")) {
+                    return Boolean.valueOf(false);
+                }
+                if (value.equalsIgnoreCase("true")) {
+                    return Boolean.valueOf(true);
+                }
+                return value;
+            } else if (c == '[') {
+                this.pos++;
+                return readArray();
+            } else if (c == '{') {
+                this.pos++;
+                return readObject();
+            } else {
+                Object literal = readLiteral();
+                if (literal == JSONObject.NULL) {
+                    return "null";
+                }
+                return literal;
+            }
+        }
+
+        private List<Object> readArray() throws JSONException {
+            List<Object> result = new ArrayList();
+            skipWhitespace();
+            if (this.pos < this.length && this.json.charAt(this.pos) == ']') {
+                this.pos++;
+                return result;
+            }
+            while (true) {
+                result.add(readValue());
+                skipWhitespace();
+                if (this.pos >= this.length) {
+                    throw syntaxError("Unterminated array");
+                }
+                char c = this.json.charAt(this.pos);
+                this.pos++;
+                if (c == ']') {
+                    return result;
+                }
+                if (c != ',') {
+                    throw syntaxError("Expected , or ]");
+                }
+            }
+        }
+
+        private List<Object> readObject() throws JSONException {
+            TreeMap<String, Object> members = new TreeMap();
+            skipWhitespace();
+            if (this.pos < this.length && this.json.charAt(this.pos) == '}') {
+                this.pos++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    if (this.pos >= this.length || this.json.charAt(this.pos) != '"') {
+                        throw syntaxError("Expected a name");
+                    }
+                    this.pos++;
+                    String name = readString();
+                    skipWhitespace();
+                    if (this.pos >= this.length || this.json.charAt(this.pos) != ':') {
+                        throw syntaxError("Expected :");
+                    }
+                    this.pos++;
+                    members.put(name, readValue());
+                    skipWhitespace();
+                    if (this.pos >= this.length) {
+                        throw syntaxError("Unterminated object");
+                    }
+                    char c = this.json.charAt(this.pos);
+                    this.pos++;
+                    if (c == '}') {
+                        break;
+                    } else if (c != ',') {
+                        throw syntaxError("Expected , or }");
+                    }
+                }
+            }
+            List<Object> result = new ArrayList(members.size());
+            for (Entry<String, Object> member : members.entrySet()) {
+                List<Object> pair = new ArrayList(2);
+                pair.add(member.getKey());
+                pair.add(member.getValue());
+                result.add(pair);
+            }
+            return result;
+        }
+
+        private String readString() throws JSONException {
+            int start = this.pos;
+            while (this.pos < this.length) {
+                char c = this.json.charAt(this.pos);
+                if (c == '"') {
+                    String value = this.json.substring(start, this.pos);
+                    this.pos++;
+                    return value;
+                } else if (c == '\\') {
+                    return readEscapedString(start);
+                } else {
+                    this.pos++;
+                }
+            }
+            throw syntaxError("Unterminated string");
+        }
+
+        private String readEscapedString(int start) throws JSONException {
+            StringBuilder sb = new StringBuilder((this.pos - start) + 16);
+            sb.append(this.json, start, this.pos);
+            while (this.pos < this.length) {
+                char c = this.json.charAt(this.pos);
+                this.pos++;
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                } else if (this.pos >= this.length) {
+                    break;
+                } else {
+                    char escaped = this.json.charAt(this.pos);
+                    this.pos++;
+                    switch (escaped) {
+                        case '"':
+                        case '/':
+                        case '\\':
+                            sb.append(escaped);
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'u':
+                            if (this.pos + 4 <= this.length) {
+                                try {
+                                    sb.append((char) Integer.parseInt(this.json.substring(this.pos, this.pos + 4), 16));
+                                    this.pos += 4;
+                                    break;
+                                } catch (NumberFormatException e) {
+                                    throw syntaxError("Invalid escape sequence");
+                                }
+                            }
+                            throw syntaxError("Unterminated escape sequence");
+                        default:
+                            throw syntaxError("Invalid escape sequence");
+                    }
+                }
+            }
+            throw syntaxError("Unterminated string");
+        }
+
+        private Object readLiteral() throws JSONException {
+            int start = this.pos;
+            while (this.pos < this.length && "{}[]/\\:,=;# \t\f\r\n\"'".indexOf(this.json.charAt(this.pos)) < 0) {
+                this.pos++;
+            }
+            String literal = this.json.substring(start, this.pos);
+            if (literal.equals("null")) {
+                return JSONObject.NULL;
+            }
+            if (literal.equals("true")) {
+                return Boolean.TRUE;
+            }
+            if (literal.equals("false")) {
+                return Boolean.FALSE;
+            }
+            if (!isJsonNumber(literal)) {
+                throw syntaxError("Unexpected literal " + literal);
+            }
+            if (literal.indexOf(46) == -1) {
+                try {
+                    long longValue = Long.parseLong(literal);
+                    if (longValue > 2147483647L || longValue < -2147483648L) {
+                        return Long.valueOf(longValue);
+                    }
+                    return Integer.valueOf((int) longValue);
+                } catch (NumberFormatException e) {
+                }
+            }
+            return Double.valueOf(literal);
+        }
+
+        private void skipWhitespace() {
+            while (this.pos < this.length) {
+                char c = this.json.charAt(this.pos);
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                    this.pos++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private JSONException syntaxError(String message) {
+            return new JSONException(message + " at character " + this.pos);
+        }
+
+        private static boolean isJsonNumber(String literal) {
+            int length = literal.length();
+            int i = 0;
+            if (length > 0 && literal.charAt(0) == '-') {
+                i = 1;
+            }
+            int intStart = i;
+            while (i < length && Character.isDigit(literal.charAt(i))) {
+                i++;
+            }
+            int intDigits = i - intStart;
+            if (intDigits == 0 || (intDigits > 1 && literal.charAt(intStart) == '0')) {
+                return false;
+            }
+            if (i < length && literal.charAt(i) == '.') {
+                i++;
+                int fractionStart = i;
+                while (i < length && Character.isDigit(literal.charAt(i))) {
+                    i++;
+                }
+                if (i == fractionStart) {
+                    return false;
+                }
+            }
+            if (i < length && (literal.charAt(i) == 'e' || literal.charAt(i) == 'E')) {
+                i++;
+                if (i < length && (literal.charAt(i) == '+' || literal.charAt(i) == '-')) {
+                    i++;
+                }
+                int exponentStart = i;
+                while (i < length && Character.isDigit(literal.charAt(i))) {
+                    i++;
+                }
+                if (i == exponentStart) {
+                    return false;
+                }
+            }
+            if (i == length) {
+                return true;
+            }
+            return false;
+        }
+    }
+
     private JsonUtil() {
     }
 
@@ -89,45 +384,112 @@ public class JsonUtil {
     }
 
     public static String getJsonRepresentation(Object value) throws JSONException {
+        StringBuilder sb = new StringBuilder();
+        writeJson(sb, value);
+        return sb.toString();
+    }
+
+    public static void writeJson(StringBuilder sb, Object value) throws JSONException {
         if (value == null || value.equals(null)) {
-            return "null";
-        }
-        if (value instanceof FString) {
-            return JSONObject.quote(value.toString());
-        }
-        if (value instanceof YailList) {
-            return ((YailList) value).toJSONString();
-        }
-        if (value instanceof IntFraction) {
-            return JSONObject.numberToString(Double.valueOf(((IntFraction) value).doubleValue()));
-        }
-        if (value instanceof Number) {
-            return JSONObject.numberToString((Number) value);
-        }
-        if (value instanceof Boolean) {
-            return value.toString();
-        }
-        if (value instanceof List) {
-            value = ((List) value).toArray();
-        }
-        if (!value.getClass().isArray()) {
-            return JSONObject.quote(value.toString());
+            sb.append("null");
+        } else if (value instanceof FString) {
+            quote(sb, value.toString());
+        } else if (value instanceof YailList) {
+            sb.append('[');
+            Object list = ((YailList) value).getCdr();
+            String separator = "";
+            while (list instanceof Pair) {
+                Pair pair = (Pair) list;
+                sb.append(separator);
+                writeJson(sb, pair.getCar());
+                separator = ",";
+                list = pair.getCdr();
+            }
+            if (list != LList.Empty) {
+                throw new YailRuntimeError("YailList cannot be represented as an array", "YailList Error.");
+            }
+            sb.append(']');
+        } else if (value instanceof IntFraction) {
+            sb.append(JSONObject.numberToString(Double.valueOf(((IntFraction) value).doubleValue())));
+        } else if (value instanceof Number) {
+            sb.append(JSONObject.numberToString((Number) value));
+        } else if (value instanceof Boolean) {
+            sb.append(value.toString());
+        } else if (value instanceof List) {
+            sb.append('[');
+            String separator2 = "";
+            for (Object o : (List) value) {
+                sb.append(separator2);
+                writeJson(sb, o);
+                separator2 = ",";
+            }
+            sb.append(']');
+        } else if (value.getClass().isArray()) {
+            sb.append('[');
+            String separator3 = "";
+            for (Object o2 : (Object[]) value) {
+                sb.append(separator3);
+                writeJson(sb, o2);
+                separator3 = ",";
+            }
+            sb.append(']');
+        } else {
+            quote(sb, value.toString());
         }
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        String separator = "";
-        for (Object o : (Object[]) value) {
-            sb.append(separator).append(getJsonRepresentation(o));
-            separator = ",";
+    }
+
+    private static void quote(StringBuilder sb, String value) {
+        sb.append('\"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\"':
+                case '/':
+                case '\\':
+                    sb.append('\\').append(c);
+                    break;
+                default:
+                    if (c > 31) {
+                        sb.append(c);
+                        break;
+                    }
+                    sb.append("\\u00");
+                    sb.append(Character.forDigit(c >> 4, 16));
+                    sb.append(Character.forDigit(c & 15, 16));
+                    break;
+            }
         }
-        sb.append("]");
-        return sb.toString();
+        sb.append('\"');
     }
 
     public static Object getObjectFromJson(String jsonString) throws JSONException {
         if (jsonString == null || jsonString.equals("")) {
             return "";
         }
+        try {
+            return new JsonParser(jsonString).readTopLevelValue();
+        } catch (JSONException e) {
+            return getObjectFromJsonTree(jsonString);
+        }
+    }
+
+    static Object getObjectFromJsonTree(String jsonString) throws JSONException {
         Object value = new JSONTokener(jsonString).nextValue();
         if (value == null || value.equals(null)) {
             return null;
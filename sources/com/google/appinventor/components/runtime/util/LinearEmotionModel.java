@@ -0,0 +1,92 @@
+package com.google.appinventor.components.runtime.util;
+
+import com.google.appinventor.components.runtime.util.LocalEmotionBackend.Model;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public class LinearEmotionModel implements Model {
+    private final float[] bias;
+    private final int inputHeight;
+    private final int inputWidth;
+    private final String[] labels;
+    private final float[][] weights;
+
+    public LinearEmotionModel(String[] labels, int inputWidth, int inputHeight, float[][] weights, float[] bias) {
+        if (weights.length != labels.length || bias.length != labels.length) {
+            throw new IllegalArgumentException("Expected one weight row and one bias per label");
+        }
+        for (float[] row : weights) {
+            if (row.length != inputWidth * inputHeight) {
+                throw new IllegalArgumentException("Expected " + (inputWidth * inputHeight) + " weights per label, found " + row.length);
+            }
+        }
+        this.labels = labels;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.weights = weights;
+        this.bias = bias;
+    }
+
+    public static LinearEmotionModel fromJson(String json) throws JSONException {
+        JSONObject model = new JSONObject(json);
+        JSONArray labelArray = model.getJSONArray("labels");
+        JSONArray weightArray = model.getJSONArray("weights");
+        JSONArray biasArray = model.getJSONArray("bias");
+        int count = labelArray.length();
+        String[] labels = new String[count];
+        float[][] weights = new float[weightArray.length()][];
+        float[] bias = new float[biasArray.length()];
+        for (int i = 0; i < count; i++) {
+            labels[i] = labelArray.getString(i);
+        }
+        for (int i = 0; i < weights.length; i++) {
+            JSONArray row = weightArray.getJSONArray(i);
+            weights[i] = new float[row.length()];
+            for (int j = 0; j < weights[i].length; j++) {
+                weights[i][j] = (float) row.getDouble(j);
+            }
+        }
+        for (int i = 0; i < bias.length; i++) {
+            bias[i] = (float) biasArray.getDouble(i);
+        }
+        return new LinearEmotionModel(labels, model.getInt("width"), model.getInt("height"), weights, bias);
+    }
+
+    public String[] getLabels() {
+        return this.labels;
+    }
+
+    public int getInputWidth() {
+        return this.inputWidth;
+    }
+
+    public int getInputHeight() {
+        return this.inputHeight;
+    }
+
+    public double[] predict(float[] pixels) {
+        double[] scores = new double[this.labels.length];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < scores.length; i++) {
+            float[] row = this.weights[i];
+            double sum = (double) this.bias[i];
+            for (int j = 0; j < row.length; j++) {
+                sum += (double) (row[j] * pixels[j]);
+            }
+            scores[i] = sum;
+            if (sum > max) {
+                max = sum;
+            }
+        }
+        double total = 0.0d;
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = Math.exp(scores[i] - max);
+            total += scores[i];
+        }
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = scores[i] / total;
+        }
+        return scores;
+    }
+}
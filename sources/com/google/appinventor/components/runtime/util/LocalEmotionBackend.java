@@ -0,0 +1,189 @@
+package com.google.appinventor.components.runtime.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapFactory.Options;
+import android.graphics.Canvas;
+import android.graphics.PointF;
+import android.media.FaceDetector;
+import android.media.FaceDetector.Face;
+import com.google.appinventor.components.runtime.Form;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public class LocalEmotionBackend implements IEmotionBackend {
+    private static final int MAX_DETECTION_SIZE = 512;
+    private static final int MIN_FACE_SIZE = 16;
+    private static int nextModelId;
+    private Model model;
+    private int modelId;
+    private String modelPath = "";
+
+    public interface Model {
+        int getInputHeight();
+
+        int getInputWidth();
+
+        String[] getLabels();
+
+        double[] predict(float[] fArr);
+    }
+
+    public synchronized void setModel(Model model) {
+        this.model = model;
+        this.modelPath = "";
+        this.modelId = newModelId();
+    }
+
+    private static synchronized int newModelId() {
+        nextModelId++;
+        return nextModelId;
+    }
+
+    public synchronized void setModelPath(String modelPath) {
+        if (modelPath == null) {
+            modelPath = "";
+        }
+        if (!modelPath.equals(this.modelPath)) {
+            this.modelPath = modelPath;
+            this.model = null;
+            this.modelId = 0;
+        }
+    }
+
+    public synchronized String getConfigurationKey() {
+        return this.modelPath.length() > 0 ? "local|" + this.modelPath : "local|#" + this.modelId;
+    }
+
+    private synchronized Model getModel(Form form) throws IOException {
+        if (this.model == null) {
+            if (this.modelPath.length() == 0) {
+                throw new IOException("No emotion model is set.");
+            }
+            InputStream in = MediaUtil.openMedia(form, this.modelPath);
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                while (true) {
+                    int read = in.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    out.write(buffer, 0, read);
+                }
+                this.model = LinearEmotionModel.fromJson(out.toString("UTF-8"));
+            } catch (JSONException e) {
+                throw new IOException("Unable to read emotion model " + this.modelPath + ": " + e.getMessage());
+            } finally {
+                in.close();
+            }
+        }
+        return this.model;
+    }
+
+    public Result recognize(Form form, String picPath) throws IOException {
+        Model model = getModel(form);
+        Bitmap bitmap = decodeForDetection(form, picPath);
+        try {
+            return classify(model, bitmap);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static Bitmap decodeForDetection(Form form, String picPath) throws IOException {
+        Options bounds = new Options();
+        bounds.inJustDecodeBounds = true;
+        InputStream in = MediaUtil.openMedia(form, picPath);
+        try {
+            BitmapFactory.decodeStream(in, null, bounds);
+            in.close();
+            int sampleSize = 1;
+            while (bounds.outWidth / sampleSize > MAX_DETECTION_SIZE || bounds.outHeight / sampleSize > MAX_DETECTION_SIZE) {
+                sampleSize *= 2;
+            }
+            Options options = new Options();
+            options.inSampleSize = sampleSize;
+            options.inPreferredConfig = Config.RGB_565;
+            in = MediaUtil.openMedia(form, picPath);
+            Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+            if (bitmap == null) {
+                throw new IOException("Unable to decode image " + picPath + ".");
+            } else if (bitmap.getWidth() % 2 == 0 && bitmap.getConfig() == Config.RGB_565) {
+                return bitmap;
+            } else {
+                Bitmap even = Bitmap.createBitmap(bitmap.getWidth() & -2, bitmap.getHeight(), Config.RGB_565);
+                new Canvas(even).drawBitmap(bitmap, 0.0f, 0.0f, null);
+                bitmap.recycle();
+                return even;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    public static Result classify(Model model, Bitmap bitmap) {
+        Face[] faces = new Face[2];
+        if (new FaceDetector(bitmap.getWidth(), bitmap.getHeight(), faces.length).findFaces(bitmap, faces) != 1) {
+            return new Result(200, "[]", "There are no face or more than one face in the picture. Please check the response content.", 0.0d);
+        }
+        PointF mid = new PointF();
+        faces[0].getMidPoint(mid);
+        float eyesDistance = faces[0].eyesDistance();
+        int side = Math.min((int) (2.5f * eyesDistance), Math.min(bitmap.getWidth(), bitmap.getHeight()));
+        if (side < MIN_FACE_SIZE) {
+            return new Result(200, "[]", "The face in the picture is too small to recognize.", 0.0d);
+        }
+        int left = Math.max(0, Math.min(bitmap.getWidth() - side, (int) (mid.x - (((float) side) / 2.0f))));
+        int top = Math.max(0, Math.min(bitmap.getHeight() - side, (int) ((mid.y + (0.4f * eyesDistance)) - (((float) side) / 2.0f))));
+        Bitmap face = Bitmap.createBitmap(bitmap, left, top, side, side);
+        Bitmap scaled = Bitmap.createScaledBitmap(face, model.getInputWidth(), model.getInputHeight(), true);
+        int[] argb = new int[(model.getInputWidth() * model.getInputHeight())];
+        scaled.getPixels(argb, 0, model.getInputWidth(), 0, 0, model.getInputWidth(), model.getInputHeight());
+        if (scaled != face) {
+            scaled.recycle();
+        }
+        if (face != bitmap) {
+            face.recycle();
+        }
+        double[] scores = model.predict(toGrayscale(argb));
+        String[] labels = model.getLabels();
+        String mostLikelyEmotion = "There is something wrong.";
+        double mostLikelyEmotionScore = 0.0d;
+        try {
+            JSONObject emotion = new JSONObject();
+            for (int i = 0; i < labels.length; i++) {
+                emotion.put(labels[i], scores[i]);
+                if (scores[i] > mostLikelyEmotionScore) {
+                    mostLikelyEmotion = labels[i];
+                    mostLikelyEmotionScore = scores[i];
+                }
+            }
+            JSONObject rectangle = new JSONObject();
+            rectangle.put("top", top);
+            rectangle.put("left", left);
+            rectangle.put("width", side);
+            rectangle.put("height", side);
+            JSONObject result = new JSONObject();
+            result.put("faceRectangle", rectangle);
+            result.put("faceAttributes", new JSONObject().put("emotion", emotion));
+            return new Result(200, new JSONArray().put(result).toString(), mostLikelyEmotion, mostLikelyEmotionScore);
+        } catch (JSONException e) {
+            return new Result(200, "[]", "There is something wrong. " + e.toString(), 0.0d);
+        }
+    }
+
+    public static float[] toGrayscale(int[] argb) {
+        float[] pixels = new float[argb.length];
+        for (int i = 0; i < argb.length; i++) {
+            int color = argb[i];
+            pixels[i] = ((((((float) ((color >> 16) & 255)) * 0.299f) + (((float) ((color >> 8) & 255)) * 0.587f)) + (((float) (color & 255)) * 0.114f)) / 255.0f);
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,552 @@
+package com.google.appinventor.components.runtime.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+public class LogKeyValueStore implements SharedPreferences {
+    private static final long COMPACTION_THRESHOLD = 262144;
+    private static final String LOG_TAG = "LogKeyValueStore";
+    private static final byte OP_CLEAR = (byte) 3;
+    private static final byte OP_PUT = (byte) 1;
+    private static final byte OP_REMOVE = (byte) 2;
+    private static final HashMap<String, LogKeyValueStore> stores = new HashMap();
+    private final Handler androidUIHandler = new Handler(Looper.getMainLooper());
+    private final File file;
+    private final TreeMap<String, Slot> index = new TreeMap();
+    private final WeakHashMap<OnSharedPreferenceChangeListener, Object> listeners = new WeakHashMap();
+    private long liveBytes;
+    private RandomAccessFile raf;
+
+    private static final class Slot {
+        final long recordLength;
+        final int valueLength;
+        final long valueOffset;
+
+        Slot(long valueOffset, int valueLength, long recordLength) {
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+        }
+    }
+
+    private final class LogEditor implements Editor {
+        private boolean cleared;
+        private final LinkedHashMap<String, String> changes;
+
+        private LogEditor() {
+            this.changes = new LinkedHashMap();
+        }
+
+        public Editor putString(String key, String value) {
+            synchronized (this) {
+                this.changes.put(key, value);
+            }
+            return this;
+        }
+
+        public Editor putStringSet(String key, Set<String> set) {
+            if (set == null) {
+                return remove(key);
+            }
+            JSONArray values = new JSONArray();
+            for (String value : set) {
+                values.put(value);
+            }
+            return putString(key, values.toString());
+        }
+
+        public Editor putInt(String key, int value) {
+            return putString(key, Integer.toString(value));
+        }
+
+        public Editor putLong(String key, long value) {
+            return putString(key, Long.toString(value));
+        }
+
+        public Editor putFloat(String key, float value) {
+            return putString(key, Float.toString(value));
+        }
+
+        public Editor putBoolean(String key, boolean value) {
+            return putString(key, Boolean.toString(value));
+        }
+
+        public Editor remove(String key) {
+            synchronized (this) {
+                this.changes.put(key, null);
+            }
+            return this;
+        }
+
+        public Editor clear() {
+            synchronized (this) {
+                this.cleared = true;
+            }
+            return this;
+        }
+
+        public boolean commit() {
+            return write(true);
+        }
+
+        public void apply() {
+            write(false);
+        }
+
+        private boolean write(boolean sync) {
+            LinkedHashMap<String, String> toWrite;
+            boolean clear;
+            synchronized (this) {
+                toWrite = new LinkedHashMap(this.changes);
+                clear = this.cleared;
+                this.changes.clear();
+                this.cleared = false;
+            }
+            try {
+                LogKeyValueStore.this.writeChanges(toWrite, clear, sync);
+                return true;
+            } catch (IOException e) {
+                Log.e(LogKeyValueStore.LOG_TAG, "Unable to write " + LogKeyValueStore.this.file, e);
+                return false;
+            }
+        }
+    }
+
+    private LogKeyValueStore(File file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    public static synchronized LogKeyValueStore getInstance(Context context, String namespace) throws IOException {
+        LogKeyValueStore store = (LogKeyValueStore) stores.get(namespace);
+        if (store == null) {
+            File directory = new File(context.getFilesDir(), "TinyDB");
+            directory.mkdirs();
+            store = new LogKeyValueStore(new File(directory, fileNameFor(namespace)));
+            stores.put(namespace, store);
+        }
+        return store;
+    }
+
+    public Map<String, ?> getAll() {
+        return new AbstractMap<String, Object>() {
+            public Set<Entry<String, Object>> entrySet() {
+                return new AbstractSet<Entry<String, Object>>() {
+                    public Iterator<Entry<String, Object>> iterator() {
+                        final Iterator<String> keys = LogKeyValueStore.this.getKeys().iterator();
+                        return new Iterator<Entry<String, Object>>() {
+                            public boolean hasNext() {
+                                return keys.hasNext();
+                            }
+
+                            public Entry<String, Object> next() {
+                                String key = (String) keys.next();
+                                return new SimpleImmutableEntry(key, LogKeyValueStore.this.getString(key, null));
+                            }
+
+                            public void remove() {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+
+                    public int size() {
+                        return LogKeyValueStore.this.size();
+                    }
+                };
+            }
+
+            public Set<String> keySet() {
+                return new AbstractSet<String>() {
+                    public Iterator<String> iterator() {
+                        return LogKeyValueStore.this.getKeys().iterator();
+                    }
+
+                    public int size() {
+                        return LogKeyValueStore.this.size();
+                    }
+                };
+            }
+
+            public boolean containsKey(Object key) {
+                return (key instanceof String) && LogKeyValueStore.this.contains((String) key);
+            }
+
+            public Object get(Object key) {
+                return key instanceof String ? LogKeyValueStore.this.getString((String) key, null) : null;
+            }
+        };
+    }
+
+    public synchronized String getString(String key, String defValue) {
+        Slot slot = (Slot) this.index.get(key);
+        if (slot == null) {
+            return defValue;
+        }
+        try {
+            byte[] value = new byte[slot.valueLength];
+            this.raf.seek(slot.valueOffset);
+            this.raf.readFully(value);
+            return new String(value, "UTF-8");
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Unable to read " + key + " from " + this.file, e);
+            return defValue;
+        }
+    }
+
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defValues;
+        }
+        try {
+            JSONArray values = new JSONArray(value);
+            Set<String> result = new HashSet();
+            for (int i = 0; i < values.length(); i++) {
+                result.add(values.getString(i));
+            }
+            return result;
+        } catch (JSONException e) {
+            throw new ClassCastException("Value for " + key + " is not a string set");
+        }
+    }
+
+    public int getInt(String key, int defValue) {
+        String value = getString(key, null);
+        return value == null ? defValue : Integer.parseInt(value);
+    }
+
+    public long getLong(String key, long defValue) {
+        String value = getString(key, null);
+        return value == null ? defValue : Long.parseLong(value);
+    }
+
+    public float getFloat(String key, float defValue) {
+        String value = getString(key, null);
+        return value == null ? defValue : Float.parseFloat(value);
+    }
+
+    public boolean getBoolean(String key, boolean defValue) {
+        String value = getString(key, null);
+        return value == null ? defValue : Boolean.parseBoolean(value);
+    }
+
+    public synchronized boolean contains(String key) {
+        return this.index.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    public synchronized List<String> getKeys() {
+        return new ArrayList(this.index.keySet());
+    }
+
+    public synchronized List<String> getKeysWithPrefix(String prefix) {
+        if (prefix.length() == 0) {
+            return getKeys();
+        }
+        int end = prefix.length() - 1;
+        while (end >= 0 && prefix.charAt(end) == 65535) {
+            end--;
+        }
+        if (end < 0) {
+            return new ArrayList(this.index.tailMap(prefix).keySet());
+        }
+        return new ArrayList(this.index.subMap(prefix, prefix.substring(0, end) + ((char) (prefix.charAt(end) + 1))).keySet());
+    }
+
+    public synchronized List<String> getKeysInRange(String fromKey, String toKey) {
+        if (fromKey.compareTo(toKey) > 0) {
+            return new ArrayList();
+        }
+        SortedMap<String, Slot> range = this.index.subMap(fromKey, toKey);
+        List<String> keys = new ArrayList(range.keySet());
+        if (this.index.containsKey(toKey)) {
+            keys.add(toKey);
+        }
+        return keys;
+    }
+
+    public Editor edit() {
+        return new LogEditor();
+    }
+
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (this.listeners) {
+            this.listeners.put(listener, this);
+        }
+    }
+
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (this.listeners) {
+            this.listeners.remove(listener);
+        }
+    }
+
+    public synchronized void compact() throws IOException {
+        File compacted = new File(this.file.getPath() + ".compact");
+        RandomAccessFile out = new RandomAccessFile(compacted, "rw");
+        TreeMap<String, Slot> newIndex = new TreeMap();
+        long newLiveBytes = 0;
+        try {
+            out.setLength(0);
+            for (Entry<String, Slot> entry : this.index.entrySet()) {
+                Slot slot = (Slot) entry.getValue();
+                byte[] value = new byte[slot.valueLength];
+                this.raf.seek(slot.valueOffset);
+                this.raf.readFully(value);
+                byte[] record = encodeRecord(OP_PUT, (String) entry.getKey(), value);
+                long offset = out.getFilePointer();
+                out.write(record);
+                newIndex.put(entry.getKey(), new Slot((offset + ((long) record.length)) - ((long) (value.length + 4)), value.length, (long) record.length));
+                newLiveBytes += (long) record.length;
+            }
+            out.getFD().sync();
+            if (!compacted.renameTo(this.file)) {
+                throw new IOException("Unable to replace " + this.file);
+            }
+        } catch (IOException e) {
+            out.close();
+            compacted.delete();
+            throw e;
+        }
+        RandomAccessFile previous = this.raf;
+        this.raf = out;
+        this.index.clear();
+        this.index.putAll(newIndex);
+        this.liveBytes = newLiveBytes;
+        try {
+            previous.close();
+        } catch (IOException e2) {
+            Log.w(LOG_TAG, "Unable to close the uncompacted " + this.file, e2);
+        }
+    }
+
+    private void writeChanges(Map<String, String> changes, boolean clear, boolean sync) throws IOException {
+        List<String> changedKeys = new ArrayList();
+        synchronized (this) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            List<Object[]> puts = new ArrayList();
+            if (clear) {
+                buffer.write(encodeRecord(OP_CLEAR, "", null));
+            }
+            for (Entry<String, String> change : changes.entrySet()) {
+                String key = (String) change.getKey();
+                String value = (String) change.getValue();
+                if (value != null) {
+                    byte[] valueBytes = value.getBytes("UTF-8");
+                    byte[] record = encodeRecord(OP_PUT, key, valueBytes);
+                    puts.add(new Object[]{key, Long.valueOf((long) (buffer.size() + record.length)), Integer.valueOf(valueBytes.length), Integer.valueOf(record.length)});
+                    buffer.write(record);
+                } else if (clear || this.index.containsKey(key)) {
+                    buffer.write(encodeRecord(OP_REMOVE, key, null));
+                }
+                changedKeys.add(key);
+            }
+            if (buffer.size() != 0) {
+                long base = this.raf.length();
+                this.raf.seek(base);
+                try {
+                    this.raf.write(buffer.toByteArray());
+                } catch (IOException e) {
+                    this.raf.setLength(base);
+                    throw e;
+                }
+                if (clear) {
+                    this.index.clear();
+                    this.liveBytes = 0;
+                }
+                for (String key2 : changes.keySet()) {
+                    if (changes.get(key2) == null) {
+                        removeSlot(key2);
+                    }
+                }
+                for (Object[] put : puts) {
+                    int valueLength = ((Integer) put[2]).intValue();
+                    int recordLength = ((Integer) put[3]).intValue();
+                    removeSlot((String) put[0]);
+                    this.index.put((String) put[0], new Slot(((base + ((Long) put[1]).longValue()) - 4) - ((long) valueLength), valueLength, (long) recordLength));
+                    this.liveBytes += (long) recordLength;
+                }
+            }
+            if (sync) {
+                this.raf.getFD().sync();
+            }
+            long length = this.raf.length();
+            if (length > COMPACTION_THRESHOLD && length > this.liveBytes * 2) {
+                try {
+                    compact();
+                } catch (IOException e2) {
+                    Log.w(LOG_TAG, "Compaction of " + this.file + " failed", e2);
+                }
+            }
+        }
+        if (clear) {
+            notifyListeners(null);
+        }
+        for (String key3 : changedKeys) {
+            notifyListeners(key3);
+        }
+    }
+
+    private void removeSlot(String key) {
+        Slot slot = (Slot) this.index.remove(key);
+        if (slot != null) {
+            this.liveBytes -= slot.recordLength;
+        }
+    }
+
+    private void notifyListeners(final String key) {
+        final List<OnSharedPreferenceChangeListener> toNotify;
+        synchronized (this.listeners) {
+            if (!this.listeners.isEmpty()) {
+                toNotify = new ArrayList(this.listeners.keySet());
+            } else {
+                return;
+            }
+        }
+        Runnable notify = new Runnable() {
+            public void run() {
+                for (OnSharedPreferenceChangeListener listener : toNotify) {
+                    listener.onSharedPreferenceChanged(LogKeyValueStore.this, key);
+                }
+            }
+        };
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            notify.run();
+        } else {
+            this.androidUIHandler.post(notify);
+        }
+    }
+
+    private void open() throws IOException {
+        this.raf = new RandomAccessFile(this.file, "rw");
+        try {
+            long validLength = replay();
+            if (validLength < this.raf.length()) {
+                Log.w(LOG_TAG, "Truncating damaged tail of " + this.file + " at " + validLength);
+                this.raf.setLength(validLength);
+            }
+        } catch (IOException e) {
+            this.raf.close();
+            throw e;
+        }
+    }
+
+    private long replay() throws IOException {
+        long length = this.raf.length();
+        long position = 0;
+        this.raf.seek(0);
+        while (position < length) {
+            try {
+                byte op = this.raf.readByte();
+                int keyLength = this.raf.readInt();
+                if (keyLength < 0 || ((long) keyLength) > length) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                this.raf.readFully(key);
+                int valueLength = this.raf.readInt();
+                if (((long) valueLength) > length) {
+                    break;
+                }
+                long valueOffset = this.raf.getFilePointer();
+                byte[] value = null;
+                if (valueLength >= 0) {
+                    value = new byte[valueLength];
+                    this.raf.readFully(value);
+                }
+                int crc = this.raf.readInt();
+                if (crc != checksum(op, key, value)) {
+                    break;
+                }
+                long recordLength = this.raf.getFilePointer() - position;
+                String keyString = new String(key, "UTF-8");
+                if (op == OP_PUT && value != null) {
+                    removeSlot(keyString);
+                    this.index.put(keyString, new Slot(valueOffset, valueLength, recordLength));
+                    this.liveBytes += recordLength;
+                } else if (op == OP_REMOVE) {
+                    removeSlot(keyString);
+                } else if (op != OP_CLEAR) {
+                    break;
+                } else {
+                    this.index.clear();
+                    this.liveBytes = 0;
+                }
+                position += recordLength;
+            } catch (EOFException e) {
+                return position;
+            }
+        }
+        return position;
+    }
+
+    private static byte[] encodeRecord(byte op, String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes("UTF-8");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(((keyBytes.length + 13) + (value == null ? 0 : value.length)));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        out.writeInt(checksum(op, keyBytes, value));
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static int checksum(byte op, byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(key);
+        if (value != null) {
+            crc.update(value);
+        }
+        return (int) crc.getValue();
+    }
+
+    private static String fileNameFor(String namespace) {
+        try {
+            return URLEncoder.encode(namespace, "UTF-8") + ".log";
+        } catch (UnsupportedEncodingException e) {
+            return Integer.toHexString(namespace.hashCode()) + ".log";
+        }
+    }
+}
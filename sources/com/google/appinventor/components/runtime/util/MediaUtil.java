@@ -1,7 +1,9 @@
 package com.google.appinventor.components.runtime.util;
 
 import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
 import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
 import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
 import android.graphics.Rect;
@@ -11,6 +13,7 @@ import android.media.SoundPool;
 import android.net.Uri;
 import android.os.Environment;
 import android.provider.Contacts.People;
+import android.support.v4.util.LruCache;
 import android.util.Log;
 import android.view.Display;
 import android.view.WindowManager;
@@ -28,14 +31,31 @@ import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class MediaUtil {
     private static final String LOG_TAG = "MediaUtil";
     private static String REPL_ASSET_DIR = null;
-    private static ConcurrentHashMap<String, String> pathCache = new ConcurrentHashMap(2);
+    private static volatile Map<String, String> assetIndex = null;
+    private static long assetIndexBuildTime = -1;
+    private static boolean assetIndexStarted = false;
+    private static final String MEMORY_MEDIA_PREFIX = "memory://";
+    private static final long MEMORY_MEDIA_MAX_BYTES = 8388608;
+    private static final LinkedHashMap<String, byte[]> memoryMedia = new LinkedHashMap(8, 0.75f, true);
+    private static long memoryMediaBytes = 0;
+    private static int memoryMediaCounter = 0;
+    private static final LruCache<String, Bitmap> bitmapCache = new LruCache<String, Bitmap>((int) Math.min(Runtime.getRuntime().maxMemory() / 8, 2147483647L)) {
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getRowBytes() * bitmap.getHeight();
+        }
+    };
+    private static ConcurrentHashMap<String, String> pathCache = new ConcurrentHashMap(16);
     private static final Map<String, File> tempFileMap = new HashMap();
 
     private static class FlushedInputStream extends FilterInputStream {
@@ -66,7 +86,8 @@ public class MediaUtil {
         FILE_URL,
         URL,
         CONTENT_URI,
-        CONTACT_URI
+        CONTACT_URI,
+        MEMORY
     }
 
     private static class Synchronizer<T> {
@@ -129,6 +150,9 @@ public class MediaUtil {
     }
 
     private static MediaSource determineMediaSource(Form form, String mediaPath) {
+        if (mediaPath.startsWith(MEMORY_MEDIA_PREFIX)) {
+            return MediaSource.MEMORY;
+        }
         if (mediaPath.startsWith("/sdcard/") || mediaPath.startsWith(Environment.getExternalStorageDirectory().getAbsolutePath())) {
             return MediaSource.SDCARD;
         }
@@ -155,6 +179,43 @@ public class MediaUtil {
         }
     }
 
+    public static String putMemoryMedia(String name, byte[] data) {
+        String mediaPath;
+        synchronized (memoryMedia) {
+            memoryMediaCounter++;
+            mediaPath = MEMORY_MEDIA_PREFIX + memoryMediaCounter + "/" + name;
+            memoryMedia.put(mediaPath, data);
+            memoryMediaBytes += (long) data.length;
+            Iterator<Map.Entry<String, byte[]>> iterator = memoryMedia.entrySet().iterator();
+            while (memoryMediaBytes > MEMORY_MEDIA_MAX_BYTES && memoryMedia.size() > 1 && iterator.hasNext()) {
+                Map.Entry<String, byte[]> eldest = (Map.Entry) iterator.next();
+                memoryMediaBytes -= (long) ((byte[]) eldest.getValue()).length;
+                iterator.remove();
+            }
+        }
+        return mediaPath;
+    }
+
+    public static void releaseMemoryMedia(String mediaPath) {
+        synchronized (memoryMedia) {
+            byte[] data = (byte[]) memoryMedia.remove(mediaPath);
+            if (data != null) {
+                memoryMediaBytes -= (long) data.length;
+            }
+        }
+    }
+
+    private static byte[] getMemoryMedia(String mediaPath) throws IOException {
+        byte[] data;
+        synchronized (memoryMedia) {
+            data = (byte[]) memoryMedia.get(mediaPath);
+        }
+        if (data != null) {
+            return data;
+        }
+        throw new IOException("Media " + mediaPath + " is no longer in memory.");
+    }
+
     public static boolean isExternalFileUrl(String mediaPath) {
         return mediaPath.startsWith("file:///sdcard/") || mediaPath.startsWith("file://" + Environment.getExternalStorageDirectory().getAbsolutePath());
     }
@@ -163,7 +224,67 @@ public class MediaUtil {
         return mediaPath.startsWith("/sdcard/") || mediaPath.startsWith(Environment.getExternalStorageDirectory().getAbsolutePath()) || isExternalFileUrl(mediaPath);
     }
 
+    public static void buildAssetIndexAsync(Form form) {
+        synchronized (MediaUtil.class) {
+            if (assetIndexStarted) {
+                return;
+            }
+            assetIndexStarted = true;
+        }
+        final AssetManager assets = form.getAssets();
+        AsynchUtil.runAsynchronously(new Runnable() {
+            public void run() {
+                long start = System.currentTimeMillis();
+                Map<String, String> index = new HashMap();
+                try {
+                    MediaUtil.indexAssets(assets, "", index);
+                    MediaUtil.assetIndexBuildTime = System.currentTimeMillis() - start;
+                    MediaUtil.assetIndex = Collections.unmodifiableMap(index);
+                    Log.i(MediaUtil.LOG_TAG, "Indexed " + index.size() + " assets in " + MediaUtil.assetIndexBuildTime + " ms");
+                } catch (IOException e) {
+                    Log.w(MediaUtil.LOG_TAG, "Unable to index assets", e);
+                }
+            }
+        });
+    }
+
+    private static void indexAssets(AssetManager assets, String directory, Map<String, String> index) throws IOException {
+        String[] names = assets.list(directory);
+        if (names != null) {
+            for (String name : names) {
+                String path = directory.length() == 0 ? name : directory + "/" + name;
+                String key = path.toLowerCase(Locale.ENGLISH);
+                if (!index.containsKey(key)) {
+                    index.put(key, path);
+                }
+                indexAssets(assets, path, index);
+            }
+        }
+    }
+
+    public static int getAssetIndexSize() {
+        Map<String, String> index = assetIndex;
+        return index == null ? -1 : index.size();
+    }
+
+    public static long getAssetIndexBuildTime() {
+        return assetIndexBuildTime;
+    }
+
+    private static String resolveAssetPath(String mediaPath) {
+        Map<String, String> index = assetIndex;
+        if (index == null) {
+            return mediaPath;
+        }
+        String path = (String) index.get(mediaPath.toLowerCase(Locale.ENGLISH));
+        return path == null ? mediaPath : path;
+    }
+
     private static String findCaseinsensitivePath(Form form, String mediaPath) throws IOException {
+        Map<String, String> index = assetIndex;
+        if (index != null) {
+            return (String) index.get(mediaPath.toLowerCase(Locale.ENGLISH));
+        }
         if (!pathCache.containsKey(mediaPath)) {
             String newPath = findCaseinsensitivePathWithoutCache(form, mediaPath);
             if (newPath == null) {
@@ -188,7 +309,7 @@ public class MediaUtil {
 
     private static InputStream getAssetsIgnoreCaseInputStream(Form form, String mediaPath) throws IOException {
         try {
-            return form.getAssets().open(mediaPath);
+            return form.getAssets().open(resolveAssetPath(mediaPath));
         } catch (IOException e) {
             String path = findCaseinsensitivePath(form, mediaPath);
             if (path != null) {
@@ -215,9 +336,11 @@ public class MediaUtil {
                 }
                 break;
             case URL:
-                break;
+                return new FileInputStream(RemoteMediaCache.getInstance(form).fetch(mediaPath));
             case CONTENT_URI:
                 return form.getContentResolver().openInputStream(Uri.parse(mediaPath));
+            case MEMORY:
+                return new ByteArrayInputStream(getMemoryMedia(mediaPath));
             case CONTACT_URI:
                 InputStream is;
                 if (SdkLevel.getLevel() >= 12) {
@@ -266,6 +389,9 @@ public class MediaUtil {
     }
 
     private static File cacheMediaTempFile(Form form, String mediaPath, MediaSource mediaSource) throws IOException {
+        if (mediaSource == MediaSource.URL) {
+            return RemoteMediaCache.getInstance(form).fetch(mediaPath);
+        }
         File tempFile = (File) tempFileMap.get(mediaPath);
         if (tempFile != null && tempFile.exists()) {
             return tempFile;
@@ -303,13 +429,73 @@ public class MediaUtil {
         return bitmapDrawable;
     }
 
+    private static String bitmapCacheKey(Form form, String mediaPath, MediaSource mediaSource) {
+        String version;
+        switch (mediaSource) {
+            case ASSET:
+            case MEMORY:
+                version = "";
+                break;
+            case SDCARD:
+                File file = new File(mediaPath);
+                version = file.lastModified() + ":" + file.length();
+                break;
+            case FILE_URL:
+                try {
+                    File file2 = new File(fileUrlToFilePath(mediaPath));
+                    version = file2.lastModified() + ":" + file2.length();
+                    break;
+                } catch (IOException e) {
+                    return null;
+                }
+            default:
+                return null;
+        }
+        Display display = ((WindowManager) form.getSystemService("window")).getDefaultDisplay();
+        return mediaPath + "|" + version + "|" + display.getWidth() + "x" + display.getHeight() + "|" + form.deviceDensity() + "|" + Form.getCompatibilityMode();
+    }
+
+    private static BitmapDrawable cachedBitmapDrawable(Form form, Bitmap bitmap) {
+        BitmapDrawable bitmapDrawable = new BitmapDrawable(form.getResources(), bitmap);
+        bitmapDrawable.setTargetDensity(form.getResources().getDisplayMetrics());
+        return bitmapDrawable;
+    }
+
+    public static int getBitmapCacheHitCount() {
+        return bitmapCache.hitCount();
+    }
+
+    public static int getBitmapCacheMissCount() {
+        return bitmapCache.missCount();
+    }
+
+    public static int getBitmapCacheSize() {
+        return bitmapCache.size();
+    }
+
+    public static int getBitmapCacheMaxSize() {
+        return bitmapCache.maxSize();
+    }
+
+    public static void clearBitmapCache() {
+        bitmapCache.evictAll();
+    }
+
     public static void getBitmapDrawableAsync(final Form form, final String mediaPath, final AsyncCallbackPair<BitmapDrawable> continuation) {
         if (mediaPath == null || mediaPath.length() == 0) {
             continuation.onSuccess(null);
             return;
         }
         final MediaSource mediaSource = determineMediaSource(form, mediaPath);
-        AsynchUtil.runAsynchronously(new Runnable() {
+        final String cacheKey = bitmapCacheKey(form, mediaPath, mediaSource);
+        if (cacheKey != null) {
+            Bitmap cachedBitmap = (Bitmap) bitmapCache.get(cacheKey);
+            if (cachedBitmap != null) {
+                continuation.onSuccess(cachedBitmapDrawable(form, cachedBitmap));
+                return;
+            }
+        }
+        AsynchUtil.runAsynchronously(null, RuntimeExecutor.PRIORITY_VISIBLE, new Runnable() {
             public void run() {
                 Log.d(MediaUtil.LOG_TAG, "mediaPath = " + mediaPath);
                 InputStream is = null;
@@ -344,6 +530,9 @@ public class MediaUtil {
                         BitmapDrawable originalBitmapDrawable = new BitmapDrawable(form.getResources(), MediaUtil.decodeStream(bis, null, options));
                         originalBitmapDrawable.setTargetDensity(form.getResources().getDisplayMetrics());
                         if (options.inSampleSize != 1 || form.deviceDensity() == 1.0f) {
+                            if (!(cacheKey == null || originalBitmapDrawable.getBitmap() == null)) {
+                                bitmapCache.put(cacheKey, originalBitmapDrawable.getBitmap());
+                            }
                             continuation.onSuccess(originalBitmapDrawable);
                             if (bis != null) {
                                 try {
@@ -364,6 +553,9 @@ public class MediaUtil {
                         BitmapDrawable scaledBitmapDrawable = new BitmapDrawable(form.getResources(), Bitmap.createScaledBitmap(originalBitmapDrawable.getBitmap(), scaledWidth, scaledHeight, false));
                         scaledBitmapDrawable.setTargetDensity(form.getResources().getDisplayMetrics());
                         System.gc();
+                        if (cacheKey != null) {
+                            bitmapCache.put(cacheKey, scaledBitmapDrawable.getBitmap());
+                        }
                         continuation.onSuccess(scaledBitmapDrawable);
                         if (bis != null) {
                             try {
@@ -480,9 +672,68 @@ public class MediaUtil {
         return options;
     }
 
+    public static byte[] getCompressedJpeg(Form form, String mediaPath, int byteBudget) throws IOException {
+        MediaSource mediaSource = determineMediaSource(form, mediaPath);
+        Options bounds = new Options();
+        bounds.inJustDecodeBounds = true;
+        InputStream is = openMedia(form, mediaPath, mediaSource);
+        try {
+            decodeStream(is, null, bounds);
+            is.close();
+            long maxPixels = ((long) byteBudget) * 4;
+            int sampleSize = 1;
+            while (((long) (bounds.outWidth / sampleSize)) * ((long) (bounds.outHeight / sampleSize)) > maxPixels) {
+                sampleSize *= 2;
+            }
+            Options options = new Options();
+            options.inSampleSize = sampleSize;
+            is = openMedia(form, mediaPath, mediaSource);
+            Bitmap bitmap = decodeStream(is, null, options);
+            if (bitmap == null) {
+                throw new IOException("Unable to decode image " + mediaPath + ".");
+            }
+            try {
+                return compressJpeg(bitmap, byteBudget);
+            } finally {
+                bitmap.recycle();
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    public static byte[] compressJpeg(Bitmap bitmap, int byteBudget) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(byteBudget);
+        Bitmap current = bitmap;
+        int quality = 90;
+        while (true) {
+            out.reset();
+            current.compress(CompressFormat.JPEG, quality, out);
+            if (out.size() <= byteBudget) {
+                break;
+            } else if (quality > 50) {
+                quality -= 10;
+            } else if (current.getWidth() <= 64 || current.getHeight() <= 64) {
+                break;
+            } else {
+                double scale = Math.max(0.5d, Math.sqrt(((double) byteBudget) / ((double) out.size())) * 0.9d);
+                Bitmap scaled = Bitmap.createScaledBitmap(current, (int) (((double) current.getWidth()) * scale), (int) (((double) current.getHeight()) * scale), true);
+                if (current != bitmap) {
+                    current.recycle();
+                }
+                current = scaled;
+                quality = 80;
+            }
+        }
+        if (current != bitmap) {
+            current.recycle();
+        }
+        return out.toByteArray();
+    }
+
     private static AssetFileDescriptor getAssetsIgnoreCaseAfd(Form form, String mediaPath) throws IOException {
         try {
-            return form.getAssets().openFd(mediaPath);
+            return form.getAssets().openFd(resolveAssetPath(mediaPath));
         } catch (IOException e) {
             String path = findCaseinsensitivePath(form, mediaPath);
             if (path != null) {
@@ -543,7 +794,23 @@ public class MediaUtil {
                 mediaPlayer.setDataSource(fileUrlToFilePath(mediaPath));
                 return;
             case URL:
-                mediaPlayer.setDataSource(mediaPath);
+                final RemoteMediaCache remoteMediaCache = RemoteMediaCache.getInstance(form);
+                File cachedFile = remoteMediaCache.lookup(mediaPath);
+                if (cachedFile == null) {
+                    mediaPlayer.setDataSource(mediaPath);
+                    return;
+                }
+                mediaPlayer.setDataSource(cachedFile.getAbsolutePath());
+                final String url = mediaPath;
+                AsynchUtil.runAsynchronously(null, RuntimeExecutor.PRIORITY_BACKGROUND, new Runnable() {
+                    public void run() {
+                        try {
+                            remoteMediaCache.fetch(url);
+                        } catch (IOException e) {
+                            Log.w(MediaUtil.LOG_TAG, "Unable to cache " + url, e);
+                        }
+                    }
+                });
                 return;
             case CONTENT_URI:
                 mediaPlayer.setDataSource(form, Uri.parse(mediaPath));
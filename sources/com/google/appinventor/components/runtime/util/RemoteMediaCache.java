@@ -0,0 +1,341 @@
+package com.google.appinventor.components.runtime.util;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class RemoteMediaCache {
+    private static final String INDEX_FILE = "index";
+    private static final String LOG_TAG = "RemoteMediaCache";
+    private static final long MAX_CACHE_BYTES = 52428800;
+    private static RemoteMediaCache instance;
+    private final File directory;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap(16, 0.75f, true);
+    private final HashMap<String, PendingFetch> pendingFetches = new HashMap();
+    private long totalBytes;
+
+    private static class Entry {
+        final String etag;
+        final String key;
+        final String lastModified;
+        final long size;
+        final String url;
+
+        Entry(String key, String url, long size, String etag, String lastModified) {
+            this.key = key;
+            this.url = url;
+            this.size = size;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static class PendingFetch {
+        private boolean done;
+        private IOException error;
+        private File file;
+
+        private PendingFetch() {
+        }
+
+        /* access modifiers changed from: private */
+        public synchronized void finish(String url, File file, IOException error) {
+            this.file = file;
+            if (file == null && error == null) {
+                error = new IOException("Unable to download " + url);
+            }
+            this.error = error;
+            this.done = true;
+            notifyAll();
+        }
+
+        /* access modifiers changed from: private */
+        public synchronized File await(String url) throws IOException {
+            while (!this.done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for " + url);
+                }
+            }
+            if (this.error == null) {
+                return this.file;
+            }
+            throw this.error;
+        }
+    }
+
+    private RemoteMediaCache(File directory) {
+        this.directory = directory;
+        directory.mkdirs();
+        readIndex();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!(file.getName().equals(INDEX_FILE) || this.entries.containsKey(file.getName()))) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    public static synchronized RemoteMediaCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new RemoteMediaCache(new File(context.getCacheDir(), "AI_MediaCache"));
+        }
+        return instance;
+    }
+
+    public synchronized File lookup(String url) {
+        Entry entry = (Entry) this.entries.get(keyFor(url));
+        if (entry == null) {
+            return null;
+        }
+        File file = new File(this.directory, entry.key);
+        if (file.exists()) {
+            return file;
+        }
+        removeEntry(entry);
+        writeIndex();
+        return null;
+    }
+
+    public File fetch(String url) throws IOException {
+        PendingFetch pending;
+        String key = keyFor(url);
+        boolean owner = false;
+        synchronized (this) {
+            pending = (PendingFetch) this.pendingFetches.get(key);
+            if (pending == null) {
+                pending = new PendingFetch();
+                this.pendingFetches.put(key, pending);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return pending.await(url);
+        }
+        File file = null;
+        IOException error = null;
+        try {
+            file = download(url, key);
+            return file;
+        } catch (IOException e) {
+            error = e;
+            throw e;
+        } finally {
+            synchronized (this) {
+                this.pendingFetches.remove(key);
+            }
+            pending.finish(url, file, error);
+        }
+    }
+
+    private File download(String url, String key) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = (Entry) this.entries.get(key);
+        }
+        File file = new File(this.directory, key);
+        if (!(entry == null || file.exists())) {
+            entry = null;
+        }
+        try {
+            HttpUrl httpUrl = HttpUrl.parse(url);
+            if (httpUrl == null) {
+                throw new IOException("Unsupported media URL " + url);
+            }
+            Request.Builder request = new Request.Builder().url(httpUrl);
+            if (entry != null) {
+                if (entry.etag.length() > 0) {
+                    request.header("If-None-Match", entry.etag);
+                }
+                if (entry.lastModified.length() > 0) {
+                    request.header("If-Modified-Since", entry.lastModified);
+                }
+            }
+            Response response = HttpTransport.execute(request.build());
+            try {
+                int responseCode = response.code();
+                if (responseCode == 304 && entry != null) {
+                    return file;
+                }
+                if (responseCode < 200 || responseCode >= 300) {
+                    throw new IOException("Unable to download " + url + ": HTTP " + responseCode);
+                }
+                File temp = File.createTempFile(key, ".tmp", this.directory);
+                long size;
+                try {
+                    size = copyToFile(response.body().byteStream(), temp);
+                } catch (IOException e) {
+                    temp.delete();
+                    throw e;
+                }
+                String etag = response.header("ETag");
+                String lastModified = response.header("Last-Modified");
+                synchronized (this) {
+                    Entry current = (Entry) this.entries.get(key);
+                    if (current != null) {
+                        removeEntry(current);
+                    }
+                    if (size > MAX_CACHE_BYTES || !temp.renameTo(file)) {
+                        Log.i(LOG_TAG, "Not caching " + url + " (" + size + " bytes)");
+                        writeIndex();
+                        return keepLargeFile(temp);
+                    }
+                    Entry newEntry = new Entry(key, url, size, etag == null ? "" : etag, lastModified == null ? "" : lastModified);
+                    this.entries.put(key, newEntry);
+                    this.totalBytes += size;
+                    trimToSize(key);
+                    writeIndex();
+                }
+                return file;
+            } finally {
+                response.close();
+            }
+        } catch (IOException e) {
+            if (entry == null) {
+                throw e;
+            }
+            Log.w(LOG_TAG, "Unable to revalidate " + url + ", using the cached copy", e);
+            return file;
+        }
+    }
+
+    private File keepLargeFile(File temp) {
+        temp.deleteOnExit();
+        return temp;
+    }
+
+    public synchronized long getSize() {
+        return this.totalBytes;
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : new ArrayList(this.entries.values())) {
+            removeEntry(entry);
+        }
+        writeIndex();
+    }
+
+    private static long copyToFile(InputStream in, File file) throws IOException {
+        long size = 0;
+        OutputStream out = new FileOutputStream(file);
+        try {
+            byte[] buffer = new byte[16384];
+            while (true) {
+                int read = in.read(buffer);
+                if (read < 0) {
+                    return size;
+                }
+                out.write(buffer, 0, read);
+                size += (long) read;
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        this.entries.remove(entry.key);
+        this.totalBytes -= entry.size;
+        new File(this.directory, entry.key).delete();
+    }
+
+    private void trimToSize(String keepKey) {
+        Iterator<Entry> iterator = new ArrayList(this.entries.values()).iterator();
+        while (this.totalBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+            Entry eldest = (Entry) iterator.next();
+            if (!eldest.key.equals(keepKey)) {
+                Log.i(LOG_TAG, "Evicting " + eldest.url + " (" + eldest.size + " bytes)");
+                removeEntry(eldest);
+            }
+        }
+    }
+
+    private void readIndex() {
+        File index = new File(this.directory, INDEX_FILE);
+        if (index.exists()) {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(index), "UTF-8"));
+                try {
+                    while (true) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            break;
+                        }
+                        String[] fields = line.split("\t", -1);
+                        if (fields.length == 5 && new File(this.directory, fields[0]).exists()) {
+                            Entry entry = new Entry(fields[0], fields[4], Long.parseLong(fields[1]), fields[2], fields[3]);
+                            this.entries.put(entry.key, entry);
+                            this.totalBytes += entry.size;
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Unable to read media cache index", e);
+            } catch (NumberFormatException e2) {
+                Log.w(LOG_TAG, "Corrupt media cache index", e2);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        File temp = new File(this.directory, "index.tmp");
+        try {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+            try {
+                for (Entry entry : this.entries.values()) {
+                    writer.write(entry.key + "\t" + entry.size + "\t" + entry.etag + "\t" + entry.lastModified + "\t" + entry.url + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+            if (!temp.renameTo(new File(this.directory, INDEX_FILE))) {
+                Log.w(LOG_TAG, "Unable to replace media cache index");
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to write media cache index", e);
+        }
+    }
+
+    private static String keyFor(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA1");
+            byte[] result = digest.digest(url.getBytes("UTF-8"));
+            StringBuffer sb = new StringBuffer(result.length * 2);
+            Formatter formatter = new Formatter(sb);
+            for (byte b : result) {
+                formatter.format("%02x", new Object[]{Byte.valueOf(b)});
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        } catch (IOException e2) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.google.appinventor.components.runtime.util;
+
+import android.util.Log;
+import com.google.appinventor.components.runtime.Component;
+import com.google.appinventor.components.runtime.Form;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class RuntimeExecutor {
+    private static final long KEEP_ALIVE_MILLIS = 30000;
+    private static final String LOG_TAG = "RuntimeExecutor";
+    private static final int MAX_WORKERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final Object NO_OWNER = new Object();
+    public static final int PRIORITY_BACKGROUND = 2;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_VISIBLE = 0;
+    private static RuntimeExecutor instance;
+    private long cancelledCount;
+    private long completedCount;
+    private int idleWorkers;
+    private int maxQueueDepth;
+    private long maxWaitNanos;
+    private int queueDepth;
+    private final LinkedHashMap<Object, ArrayDeque<Task>>[] queues = new LinkedHashMap[]{new LinkedHashMap(), new LinkedHashMap(), new LinkedHashMap()};
+    private int runningCount;
+    private long startedCount;
+    private long totalWaitNanos;
+    private int workerCount;
+    private int workerId;
+
+    public static final class Task {
+        /* access modifiers changed from: private */
+        public final Runnable call;
+        /* access modifiers changed from: private */
+        public volatile boolean cancelled;
+        /* access modifiers changed from: private */
+        public final long enqueueNanos = System.nanoTime();
+        /* access modifiers changed from: private */
+        public final Object owner;
+        /* access modifiers changed from: private */
+        public final int priority;
+        /* access modifiers changed from: private */
+        public final Object scope;
+
+        private Task(Object owner, Object scope, int priority, Runnable call) {
+            this.owner = owner;
+            this.scope = scope;
+            this.priority = priority;
+            this.call = call;
+        }
+
+        public boolean cancel() {
+            this.cancelled = true;
+            return RuntimeExecutor.getInstance().remove(this);
+        }
+
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+    }
+
+    private RuntimeExecutor() {
+    }
+
+    public static synchronized RuntimeExecutor getInstance() {
+        if (instance == null) {
+            instance = new RuntimeExecutor();
+        }
+        return instance;
+    }
+
+    public static synchronized boolean isStarted() {
+        return instance != null;
+    }
+
+    public Task submit(Object owner, int priority, Runnable call) {
+        Object scope = owner instanceof Component ? ((Component) owner).getDispatchDelegate() : Form.getActiveForm();
+        Task task = new Task(owner == null ? NO_OWNER : owner, scope, Math.min(Math.max(priority, PRIORITY_VISIBLE), PRIORITY_BACKGROUND), call);
+        synchronized (this) {
+            ArrayDeque<Task> queue = (ArrayDeque) this.queues[task.priority].get(task.owner);
+            if (queue == null) {
+                queue = new ArrayDeque();
+                this.queues[task.priority].put(task.owner, queue);
+            }
+            queue.add(task);
+            this.queueDepth++;
+            if (this.queueDepth > this.maxQueueDepth) {
+                this.maxQueueDepth = this.queueDepth;
+            }
+            if (this.idleWorkers > 0) {
+                notify();
+            }
+            if (this.queueDepth > this.idleWorkers && this.workerCount < MAX_WORKERS) {
+                startWorker();
+            }
+        }
+        return task;
+    }
+
+    public synchronized int cancelAll(Object scope) {
+        int count = 0;
+        for (LinkedHashMap<Object, ArrayDeque<Task>> queuesByOwner : this.queues) {
+            Iterator<Entry<Object, ArrayDeque<Task>>> owners = queuesByOwner.entrySet().iterator();
+            while (owners.hasNext()) {
+                Entry<Object, ArrayDeque<Task>> entry = (Entry) owners.next();
+                Iterator<Task> tasks = ((ArrayDeque) entry.getValue()).iterator();
+                while (tasks.hasNext()) {
+                    Task task = (Task) tasks.next();
+                    if (task.scope == scope || task.owner == scope) {
+                        task.cancelled = true;
+                        tasks.remove();
+                        count++;
+                    }
+                }
+                if (((ArrayDeque) entry.getValue()).isEmpty()) {
+                    owners.remove();
+                }
+            }
+        }
+        this.queueDepth -= count;
+        this.cancelledCount += (long) count;
+        if (count > 0) {
+            Log.i(LOG_TAG, "Cancelled " + count + " queued tasks");
+        }
+        return count;
+    }
+
+    public synchronized int getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    public synchronized int getMaxQueueDepth() {
+        return this.maxQueueDepth;
+    }
+
+    public synchronized int getActiveCount() {
+        return this.runningCount;
+    }
+
+    public synchronized double getAverageWaitMillis() {
+        return this.startedCount == 0 ? 0.0d : (((double) this.totalWaitNanos) / ((double) this.startedCount)) / 1000000.0d;
+    }
+
+    public synchronized double getMaxWaitMillis() {
+        return ((double) this.maxWaitNanos) / 1000000.0d;
+    }
+
+    public synchronized void resetStats() {
+        this.maxQueueDepth = this.queueDepth;
+        this.maxWaitNanos = 0;
+        this.totalWaitNanos = 0;
+        this.startedCount = 0;
+        this.completedCount = 0;
+        this.cancelledCount = 0;
+    }
+
+    public synchronized JSONObject toJSONObject() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("workers", this.workerCount);
+        result.put("maxWorkers", MAX_WORKERS);
+        result.put("active", this.runningCount);
+        result.put("queueDepth", this.queueDepth);
+        result.put("maxQueueDepth", this.maxQueueDepth);
+        result.put("started", this.startedCount);
+        result.put("completed", this.completedCount);
+        result.put("cancelled", this.cancelledCount);
+        result.put("avgWaitMs", getAverageWaitMillis());
+        result.put("maxWaitMs", getMaxWaitMillis());
+        return result;
+    }
+
+    /* access modifiers changed from: private */
+    public synchronized boolean remove(Task task) {
+        ArrayDeque<Task> queue = (ArrayDeque) this.queues[task.priority].get(task.owner);
+        if (queue == null || !queue.remove(task)) {
+            return false;
+        }
+        if (queue.isEmpty()) {
+            this.queues[task.priority].remove(task.owner);
+        }
+        this.queueDepth--;
+        this.cancelledCount++;
+        return true;
+    }
+
+    private void startWorker() {
+        this.workerCount++;
+        this.workerId++;
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                RuntimeExecutor.this.runWorker();
+            }
+        }, "AsynchUtil-" + this.workerId);
+        thread.start();
+    }
+
+    /* access modifiers changed from: private */
+    public void runWorker() {
+        boolean idle = false;
+        try {
+            while (true) {
+                Task task = takeTask();
+                if (task == null) {
+                    idle = true;
+                    return;
+                }
+                try {
+                    task.call.run();
+                } finally {
+                    finishTask();
+                }
+            }
+        } finally {
+            if (!idle) {
+                synchronized (this) {
+                    this.workerCount--;
+                }
+            }
+        }
+    }
+
+    private synchronized Task takeTask() {
+        Task task;
+        long idleSince = System.currentTimeMillis();
+        while (true) {
+            task = pollTask();
+            if (task != null) {
+                break;
+            }
+            long remaining = KEEP_ALIVE_MILLIS - (System.currentTimeMillis() - idleSince);
+            if (remaining <= 0) {
+                this.workerCount--;
+                return null;
+            }
+            this.idleWorkers++;
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+            } finally {
+                this.idleWorkers--;
+            }
+        }
+        long waitNanos = System.nanoTime() - task.enqueueNanos;
+        this.startedCount++;
+        this.totalWaitNanos += waitNanos;
+        if (waitNanos > this.maxWaitNanos) {
+            this.maxWaitNanos = waitNanos;
+        }
+        this.runningCount++;
+        return task;
+    }
+
+    private Task pollTask() {
+        for (LinkedHashMap<Object, ArrayDeque<Task>> queuesByOwner : this.queues) {
+            if (!queuesByOwner.isEmpty()) {
+                Entry<Object, ArrayDeque<Task>> entry = (Entry) queuesByOwner.entrySet().iterator().next();
+                Object owner = entry.getKey();
+                ArrayDeque<Task> queue = (ArrayDeque) entry.getValue();
+                Task task = (Task) queue.poll();
+                queuesByOwner.remove(owner);
+                if (!queue.isEmpty()) {
+                    queuesByOwner.put(owner, queue);
+                }
+                this.queueDepth--;
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void finishTask() {
+        this.runningCount--;
+        this.completedCount++;
+    }
+}
@@ -10,13 +10,47 @@ import org.json.JSONException;
 
 public class YailList extends Pair {
     private static final String LOG_TAG = "YailList";
+    private transient Pair[] cells;
+    private transient int cellCount;
 
-    public YailList() {
-        super(YailConstants.YAIL_HEADER, LList.Empty);
+    public static final class Cell extends Pair {
+        /* access modifiers changed from: private */
+        public transient YailList owner;
+
+        public Cell() {
+            super(null, LList.Empty);
+        }
+
+        Cell(YailList owner, Object carval, Object cdrval) {
+            super(carval, cdrval);
+            this.owner = owner;
+        }
+
+        public void setCdr(Object cdr) {
+            super.setCdr(cdr);
+            invalidateOwner();
+        }
+
+        public void setCdrBackdoor(Object cdr) {
+            super.setCdrBackdoor(cdr);
+            invalidateOwner();
+        }
+
+        /* access modifiers changed from: private */
+        public void link(Object cdr) {
+            super.setCdr(cdr);
+        }
+
+        private void invalidateOwner() {
+            YailList list = this.owner;
+            if (list != null) {
+                list.cells = null;
+            }
+        }
     }
 
-    private YailList(Object cdrval) {
-        super(YailConstants.YAIL_HEADER, cdrval);
+    public YailList() {
+        super(YailConstants.YAIL_HEADER, LList.Empty);
     }
 
     public static YailList makeEmptyList() {
@@ -24,15 +58,30 @@ public class YailList extends Pair {
     }
 
     public static YailList makeList(Object[] objects) {
-        return new YailList(LList.makeList(objects, 0));
+        return makeIndexedList(objects);
     }
 
     public static YailList makeList(List vals) {
-        return new YailList(LList.makeList(vals));
+        return makeIndexedList(vals.toArray());
     }
 
     public static YailList makeList(Collection vals) {
-        return new YailList(LList.makeList(vals.toArray(), 0));
+        return makeIndexedList(vals.toArray());
+    }
+
+    private static YailList makeIndexedList(Object[] items) {
+        YailList list = new YailList();
+        Pair[] cells = new Pair[Math.max(items.length, 8)];
+        Object tail = LList.Empty;
+        for (int i = items.length - 1; i >= 0; i--) {
+            Cell cell = new Cell(list, items[i], tail);
+            cells[i] = cell;
+            tail = cell;
+        }
+        list.setCdr(tail);
+        list.cells = cells;
+        list.cellCount = items.length;
+        return list;
     }
 
     public Object[] toArray() {
@@ -69,25 +118,172 @@ public class YailList extends Pair {
 
     public String toJSONString() {
         try {
-            StringBuilder json = new StringBuilder();
-            String separator = "";
-            json.append('[');
-            int size = size();
-            for (int i = 1; i <= size; i++) {
-                json.append(separator).append(JsonUtil.getJsonRepresentation(get(i)));
-                separator = ",";
-            }
-            json.append(']');
-            return json.toString();
+            return JsonUtil.getJsonRepresentation(this);
         } catch (JSONException e) {
             throw new YailRuntimeError("List failed to convert to JSON.", "JSON Creation Error.");
         }
     }
 
     public int size() {
+        if (ensureIndex()) {
+            return this.cellCount;
+        }
         return super.size() - 1;
     }
 
+    public Object get(int index) {
+        if (index <= 0 || !ensureIndex()) {
+            return super.get(index);
+        }
+        if (index <= this.cellCount) {
+            return this.cells[index - 1].getCar();
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    public void setCdr(Object cdr) {
+        super.setCdr(cdr);
+        this.cells = null;
+    }
+
+    public void setCdrBackdoor(Object cdr) {
+        super.setCdrBackdoor(cdr);
+        this.cells = null;
+    }
+
+    public Object getContent(int index) {
+        return cellAt(index).getCar();
+    }
+
+    public void setContent(int index, Object value) {
+        cellAt(index).setCar(value);
+    }
+
+    public void insertContent(int index, Object item) {
+        boolean indexed = ensureIndex();
+        Pair previous = index == 0 ? this : cellAt(index - 1);
+        Cell cell = new Cell(this, item, previous.getCdr());
+        link(previous, cell);
+        if (indexed && this.cells != null) {
+            insertCell(index, cell);
+        }
+    }
+
+    public void removeContent(int index) {
+        boolean indexed = ensureIndex();
+        Pair cell = cellAt(index);
+        link(index == 0 ? this : cellAt(index - 1), cell.getCdr());
+        if ((cell instanceof Cell) && ((Cell) cell).owner == this) {
+            ((Cell) cell).owner = null;
+        }
+        if (indexed && this.cells != null) {
+            System.arraycopy(this.cells, index + 1, this.cells, index, (this.cellCount - index) - 1);
+            this.cellCount--;
+            this.cells[this.cellCount] = null;
+        }
+    }
+
+    public void appendContents(Object contents) {
+        boolean indexed = ensureIndex();
+        Pair last = indexed ? this.cellCount == 0 ? this : this.cells[this.cellCount - 1] : lastCell();
+        Object[] items = contents instanceof LList ? ((LList) contents).toArray() : new Object[0];
+        for (Object item : items) {
+            Cell cell = new Cell(this, item, LList.Empty);
+            link(last, cell);
+            if (indexed && this.cells != null) {
+                insertCell(this.cellCount, cell);
+            }
+            last = cell;
+        }
+    }
+
+    private void link(Pair previous, Object cdr) {
+        if (previous == this) {
+            super.setCdr(cdr);
+        } else if (!(previous instanceof Cell) || ((Cell) previous).owner != this) {
+            previous.setCdr(cdr);
+        } else {
+            ((Cell) previous).link(cdr);
+        }
+    }
+
+    private Pair lastCell() {
+        Pair last = this;
+        while (last.getCdr() instanceof Pair) {
+            last = (Pair) last.getCdr();
+        }
+        if (last.getCdr() == LList.Empty) {
+            return last;
+        }
+        throw new YailRuntimeError("YailList is not a proper list", "YailList Error.");
+    }
+
+    private Pair cellAt(int index) {
+        if (!ensureIndex()) {
+            Object list = this.cdr;
+            for (int i = 0; list instanceof Pair; i++) {
+                if (i == index) {
+                    return (Pair) list;
+                }
+                list = ((Pair) list).getCdr();
+            }
+            throw new IndexOutOfBoundsException("Index: " + index);
+        } else if (index >= 0 && index < this.cellCount) {
+            return this.cells[index];
+        } else {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.cellCount);
+        }
+    }
+
+    private void insertCell(int index, Pair cell) {
+        if (this.cellCount == this.cells.length) {
+            Pair[] grown = new Pair[Math.max(this.cells.length * 2, 8)];
+            System.arraycopy(this.cells, 0, grown, 0, this.cellCount);
+            this.cells = grown;
+        }
+        System.arraycopy(this.cells, index, this.cells, index + 1, this.cellCount - index);
+        this.cells[index] = cell;
+        this.cellCount++;
+    }
+
+    private boolean ensureIndex() {
+        Pair[] current = this.cells;
+        if (current != null) {
+            if (this.cellCount == 0) {
+                if (this.cdr == LList.Empty) {
+                    return true;
+                }
+            } else if (this.cdr == current[0] && current[this.cellCount - 1].getCdr() == LList.Empty) {
+                return true;
+            }
+        }
+        Object list = this.cdr;
+        if (list != LList.Empty && (!(list instanceof Cell) || ((Cell) list).owner != this)) {
+            this.cells = null;
+            return false;
+        }
+        Pair[] newCells = new Pair[8];
+        int count = 0;
+        while ((list instanceof Cell) && ((Cell) list).owner == this) {
+            if (count == newCells.length) {
+                Pair[] grown = new Pair[(count * 2)];
+                System.arraycopy(newCells, 0, grown, 0, count);
+                newCells = grown;
+            }
+            Pair pair = (Pair) list;
+            newCells[count] = pair;
+            count++;
+            list = pair.getCdr();
+        }
+        if (list != LList.Empty) {
+            this.cells = null;
+            return false;
+        }
+        this.cells = newCells;
+        this.cellCount = count;
+        return true;
+    }
+
     public String toString() {
         if (this.cdr instanceof Pair) {
             return ((Pair) this.cdr).toString();
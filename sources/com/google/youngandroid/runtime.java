@@ -15,6 +15,7 @@ import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.errors.YailRuntimeError;
 import com.google.appinventor.components.runtime.util.AssetFetcher;
 import com.google.appinventor.components.runtime.util.CsvUtil;
+import com.google.appinventor.components.runtime.util.EnvironmentIndex;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.JavaJoinListOfStrings;
 import com.google.appinventor.components.runtime.util.PropertyUtil;
@@ -62,6 +63,7 @@ import io.fabric.sdk.android.services.events.EventsFilesManager;
 import io.fabric.sdk.android.services.settings.SettingsJsonConstants;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -114,6 +116,10 @@ public class runtime extends ModuleBody implements Runnable {
     public static Object $Stthe$Mnnull$Mnvalue$Mnprinted$Mnrep$St;
     public static Object $Stthe$Mnnull$Mnvalue$St;
     public static Object $Stthis$Mnform$St;
+    private static final IdentityHashMap<Object, CoercionPlan> coercionPlans = new IdentityHashMap();
+    private static EnvironmentIndex formEnvironmentIndex;
+    private static EnvironmentIndex globalVarEnvironmentIndex;
+    private static Object indexedForm;
     public static Object $Stthis$Mnis$Mnthe$Mnrepl$St;
     public static Object $Stui$Mnhandler$St;
     public static final ModuleMethod $Styail$Mnbreak$St;
@@ -129,6 +135,7 @@ public class runtime extends ModuleBody implements Runnable {
     public static final Class JavaIterator = Iterator.class;
     public static final Class JavaJoinListOfStrings = JavaJoinListOfStrings.class;
     public static final Class KawaEnvironment = Environment.class;
+    private static final int MAX_COERCION_PLANS = 512;
     static final SimpleSymbol Lit0;
     static final SimpleSymbol Lit1;
     static final SimpleSymbol Lit10 = ((SimpleSymbol) new SimpleSymbol("any").readResolve());
@@ -720,6 +727,88 @@ public class runtime extends ModuleBody implements Runnable {
     public static final ModuleMethod yail$Mnnumber$Mnrange;
     public static final ModuleMethod yail$Mnround;
 
+    static final class CoercionPlan {
+        static final int ANY = 0;
+        static final int BOOLEAN = 3;
+        static final int COMPONENT = 6;
+        static final int COMPONENT_OF_TYPE = 7;
+        static final int INSTANT = 5;
+        static final int LIST = 4;
+        static final int NUMBER = 1;
+        static final int TEXT = 2;
+        final int[] kinds;
+        final Object[] types;
+
+        CoercionPlan(Object[] types) {
+            this.types = types;
+            this.kinds = new int[types.length];
+            for (int i = 0; i < types.length; i++) {
+                this.kinds[i] = kindOf(types[i]);
+            }
+        }
+
+        static int kindOf(Object type) {
+            if (IsEqual.apply(type, runtime.Lit4)) {
+                return NUMBER;
+            }
+            if (IsEqual.apply(type, runtime.Lit5)) {
+                return TEXT;
+            }
+            if (IsEqual.apply(type, runtime.Lit6)) {
+                return BOOLEAN;
+            }
+            if (IsEqual.apply(type, runtime.Lit7)) {
+                return LIST;
+            }
+            if (IsEqual.apply(type, runtime.Lit8)) {
+                return INSTANT;
+            }
+            if (IsEqual.apply(type, runtime.Lit9)) {
+                return COMPONENT;
+            }
+            return IsEqual.apply(type, runtime.Lit10) ? ANY : COMPONENT_OF_TYPE;
+        }
+
+        /* access modifiers changed from: 0000 */
+        public Object[] coerce(Object arglist) {
+            Object[] coerced = new Object[this.kinds.length];
+            Object arg0 = arglist;
+            for (int i = 0; i < coerced.length; i++) {
+                if (!(arg0 instanceof Pair)) {
+                    return null;
+                }
+                Pair pair = (Pair) arg0;
+                coerced[i] = coerce(i, pair.getCar());
+                arg0 = pair.getCdr();
+            }
+            if (arg0 != LList.Empty) {
+                return null;
+            }
+            return coerced;
+        }
+
+        private Object coerce(int i, Object arg) {
+            switch (this.kinds[i]) {
+                case NUMBER:
+                    return arg instanceof Numeric ? arg : runtime.coerceToNumber(runtime.sanitizeAtomic(arg));
+                case TEXT:
+                    return arg instanceof String ? arg : runtime.coerceToText(runtime.sanitizeAtomic(arg));
+                case BOOLEAN:
+                    return arg instanceof Boolean ? arg : runtime.coerceToBoolean(runtime.sanitizeAtomic(arg));
+                case LIST:
+                    return runtime.coerceToYailList(runtime.sanitizeAtomic(arg));
+                case INSTANT:
+                    return runtime.coerceToInstant(runtime.sanitizeAtomic(arg));
+                case COMPONENT:
+                    return arg instanceof Component ? arg : runtime.coerceToComponent(runtime.sanitizeAtomic(arg));
+                case COMPONENT_OF_TYPE:
+                    return runtime.coerceToComponentOfType(runtime.sanitizeAtomic(arg), this.types[i]);
+                default:
+                    return runtime.sanitizeAtomic(arg);
+            }
+        }
+    }
+
     /* compiled from: runtime5242233884216628845.scm */
     public class frame0 extends ModuleBody {
         Object arg;
@@ -1086,6 +1175,7 @@ public class runtime extends ModuleBody implements Runnable {
         $Stinit$Mnthunk$Mnenvironment$St = Environment.make("init-thunk-environment");
         $Sttest$Mnenvironment$St = Environment.make("test-env");
         $Sttest$Mnglobal$Mnvar$Mnenvironment$St = Environment.make("test-global-var-env");
+        invalidateEnvironmentIndexes();
         $Stthe$Mnnull$Mnvalue$St = null;
         $Stthe$Mnnull$Mnvalue$Mnprinted$Mnrep$St = "*nothing*";
         $Stthe$Mnempty$Mnstring$Mnprinted$Mnrep$St = "*empty-string*";
@@ -3049,70 +3139,87 @@ public class runtime extends ModuleBody implements Runnable {
     }
 
     public static Object addToCurrentFormEnvironment(Symbol name, Object object) {
-        if ($Stthis$Mnform$St != null) {
-            return Invoke.invokeStatic.applyN(new Object[]{KawaEnvironment, Lit0, SlotGet.getSlotValue(false, $Stthis$Mnform$St, "form-environment", "form$Mnenvironment", "getFormEnvironment", "isFormEnvironment", Scheme.instance), name, object});
-        }
-        return Invoke.invokeStatic.applyN(new Object[]{KawaEnvironment, Lit0, $Sttest$Mnenvironment$St, name, object});
+        currentFormEnvironmentIndex().put(name, object);
+        return Values.empty;
     }
 
     public static Object lookupInCurrentFormEnvironment(Symbol name, Object default$Mnvalue) {
-        Object env = $Stthis$Mnform$St != null ? SlotGet.getSlotValue(false, $Stthis$Mnform$St, "form-environment", "form$Mnenvironment", "getFormEnvironment", "isFormEnvironment", Scheme.instance) : $Sttest$Mnenvironment$St;
-        try {
-            if (((Environment) env).isBound(name)) {
-                return Invoke.invokeStatic.apply4(KawaEnvironment, Lit1, env, name);
-            }
-            return default$Mnvalue;
-        } catch (ClassCastException e) {
-            throw new WrongType(e, "gnu.mapping.Environment.isBound(gnu.mapping.Symbol)", 1, env);
-        }
+        return currentFormEnvironmentIndex().get(name, default$Mnvalue);
     }
 
     public static Object deleteFromCurrentFormEnvironment(Symbol name) {
-        if ($Stthis$Mnform$St != null) {
-            return Invoke.invokeStatic.apply4(KawaEnvironment, Lit3, SlotGet.getSlotValue(false, $Stthis$Mnform$St, "form-environment", "form$Mnenvironment", "getFormEnvironment", "isFormEnvironment", Scheme.instance), name);
-        }
-        return Invoke.invokeStatic.apply4(KawaEnvironment, Lit3, $Sttest$Mnenvironment$St, name);
+        currentFormEnvironmentIndex().remove(name);
+        return Values.empty;
     }
 
     public static Object renameInCurrentFormEnvironment(Symbol old$Mnname, Symbol new$Mnname) {
         if (Scheme.isEqv.apply2(old$Mnname, new$Mnname) != Boolean.FALSE) {
             return Values.empty;
         }
-        Object old$Mnvalue = lookupInCurrentFormEnvironment(old$Mnname);
-        if ($Stthis$Mnform$St != null) {
-            Invoke.invokeStatic.applyN(new Object[]{KawaEnvironment, Lit0, SlotGet.getSlotValue(false, $Stthis$Mnform$St, "form-environment", "form$Mnenvironment", "getFormEnvironment", "isFormEnvironment", Scheme.instance), new$Mnname, old$Mnvalue});
-        } else {
-            Invoke.invokeStatic.applyN(new Object[]{KawaEnvironment, Lit0, $Sttest$Mnenvironment$St, new$Mnname, old$Mnvalue});
-        }
-        return deleteFromCurrentFormEnvironment(old$Mnname);
+        EnvironmentIndex index = currentFormEnvironmentIndex();
+        index.put(new$Mnname, index.get(old$Mnname, Boolean.FALSE));
+        index.remove(old$Mnname);
+        return Values.empty;
     }
 
     public static Object addGlobalVarToCurrentFormEnvironment(Symbol name, Object object) {
-        if ($Stthis$Mnform$St != null) {
-            Invoke.invokeStatic.applyN(new Object[]{KawaEnvironment, Lit0, SlotGet.getSlotValue(false, $Stthis$Mnform$St, "global-var-environment", "global$Mnvar$Mnenvironment", "getGlobalVarEnvironment", "isGlobalVarEnvironment", Scheme.instance), name, object});
-        } else {
-            Invoke.invokeStatic.applyN(new Object[]{KawaEnvironment, Lit0, $Sttest$Mnglobal$Mnvar$Mnenvironment$St, name, object});
-        }
+        currentGlobalVarEnvironmentIndex().put(name, object);
         return null;
     }
 
     public static Object lookupGlobalVarInCurrentFormEnvironment(Symbol name, Object default$Mnvalue) {
-        Object env = $Stthis$Mnform$St != null ? SlotGet.getSlotValue(false, $Stthis$Mnform$St, "global-var-environment", "global$Mnvar$Mnenvironment", "getGlobalVarEnvironment", "isGlobalVarEnvironment", Scheme.instance) : $Sttest$Mnglobal$Mnvar$Mnenvironment$St;
+        return currentGlobalVarEnvironmentIndex().get(name, default$Mnvalue);
+    }
+
+    private static EnvironmentIndex currentFormEnvironmentIndex() {
+        Object form = $Stthis$Mnform$St;
+        EnvironmentIndex index = formEnvironmentIndex;
+        if (index != null && indexedForm == form) {
+            return index;
+        }
+        return indexEnvironments(form)[0];
+    }
+
+    private static EnvironmentIndex currentGlobalVarEnvironmentIndex() {
+        Object form = $Stthis$Mnform$St;
+        EnvironmentIndex index = globalVarEnvironmentIndex;
+        if (index != null && indexedForm == form) {
+            return index;
+        }
+        return indexEnvironments(form)[1];
+    }
+
+    private static synchronized EnvironmentIndex[] indexEnvironments(Object form) {
+        Object env = form != null ? SlotGet.getSlotValue(false, form, "form-environment", "form$Mnenvironment", "getFormEnvironment", "isFormEnvironment", Scheme.instance) : $Sttest$Mnenvironment$St;
+        Object globalEnv = form != null ? SlotGet.getSlotValue(false, form, "global-var-environment", "global$Mnvar$Mnenvironment", "getGlobalVarEnvironment", "isGlobalVarEnvironment", Scheme.instance) : $Sttest$Mnglobal$Mnvar$Mnenvironment$St;
         try {
-            if (((Environment) env).isBound(name)) {
-                return Invoke.invokeStatic.apply4(KawaEnvironment, Lit1, env, name);
+            EnvironmentIndex index = new EnvironmentIndex((Environment) env);
+            try {
+                EnvironmentIndex globalIndex = new EnvironmentIndex((Environment) globalEnv);
+                formEnvironmentIndex = index;
+                globalVarEnvironmentIndex = globalIndex;
+                indexedForm = form;
+                return new EnvironmentIndex[]{index, globalIndex};
+            } catch (ClassCastException e) {
+                throw new WrongType(e, "gnu.mapping.Environment", 1, globalEnv);
             }
-            return default$Mnvalue;
-        } catch (ClassCastException e) {
-            throw new WrongType(e, "gnu.mapping.Environment.isBound(gnu.mapping.Symbol)", 1, env);
+        } catch (ClassCastException e2) {
+            throw new WrongType(e2, "gnu.mapping.Environment", 1, env);
         }
     }
 
+    private static void invalidateEnvironmentIndexes() {
+        formEnvironmentIndex = null;
+        globalVarEnvironmentIndex = null;
+        indexedForm = null;
+    }
+
     public static void resetCurrentFormEnvironment() {
         if ($Stthis$Mnform$St != null) {
             Object form$Mnname = SlotGet.getSlotValue(false, $Stthis$Mnform$St, "form-name-symbol", "form$Mnname$Mnsymbol", "getFormNameSymbol", "isFormNameSymbol", Scheme.instance);
             try {
                 SlotSet.set$Mnfield$Ex.apply3($Stthis$Mnform$St, "form-environment", Environment.make(misc.symbol$To$String((Symbol) form$Mnname)));
+                invalidateEnvironmentIndexes();
                 try {
                     addToCurrentFormEnvironment((Symbol) form$Mnname, $Stthis$Mnform$St);
                     Procedure procedure = SlotSet.set$Mnfield$Ex;
@@ -3124,6 +3231,7 @@ public class runtime extends ModuleBody implements Runnable {
                         objArr[1] = "-global-vars";
                         FString stringAppend = strings.stringAppend(objArr);
                         procedure.apply3(obj, str, Environment.make(stringAppend == null ? null : stringAppend.toString()));
+                        invalidateEnvironmentIndexes();
                         return;
                     } catch (ClassCastException e) {
                         throw new WrongType(e, "symbol->string", 1, form$Mnname);
@@ -3138,6 +3246,7 @@ public class runtime extends ModuleBody implements Runnable {
         $Sttest$Mnenvironment$St = Environment.make("test-env");
         Invoke.invoke.apply3(Environment.getCurrent(), "addParent", $Sttest$Mnenvironment$St);
         $Sttest$Mnglobal$Mnvar$Mnenvironment$St = Environment.make("test-global-var-env");
+        invalidateEnvironmentIndexes();
     }
 
     static Object lambda19(Object arg$Mnname, Object bodyform, Object list$Mnof$Mnargs) {
@@ -3224,35 +3333,18 @@ public class runtime extends ModuleBody implements Runnable {
 
     public static Object callComponentMethod(Object component$Mnname, Object method$Mnname, Object arglist, Object typelist) {
         Object result;
-        if (isAllCoercible(coerceArgs(method$Mnname, arglist, typelist)) != Boolean.FALSE) {
-            Object apply2;
+        Object[] coerced$Mnargs = coerceArgsToArray(method$Mnname, arglist, typelist);
+        if (coerced$Mnargs != null) {
             try {
-                Procedure procedure = Scheme.apply;
-                Invoke invoke = Invoke.invoke;
-                Object[] objArr = new Object[2];
-                objArr[0] = lookupInCurrentFormEnvironment((Symbol) component$Mnname);
-                Object[] objArr2 = new Object[2];
-                objArr2[0] = method$Mnname;
-                objArr2[1] = Quote.append$V(new Object[]{coerced$Mnargs, LList.Empty});
-                objArr[1] = Quote.consX$V(objArr2);
-                apply2 = procedure.apply2(invoke, Quote.consX$V(objArr));
-            } catch (ClassCastException e) {
-                throw new WrongType(e, "lookup-in-current-form-environment", 0, component$Mnname);
-            } catch (PermissionException exception) {
-                Procedure procedure2 = Invoke.invoke;
-                Object[] objArr3 = new Object[5];
-                objArr3[0] = Form.getActiveForm();
-                objArr3[1] = "dispatchPermissionDeniedEvent";
+                Object component = lookupInCurrentFormEnvironment((Symbol) component$Mnname);
                 try {
-                    objArr3[2] = lookupInCurrentFormEnvironment((Symbol) component$Mnname);
-                    objArr3[3] = method$Mnname;
-                    objArr3[4] = exception;
-                    apply2 = procedure2.applyN(objArr3);
-                } catch (ClassCastException e2) {
-                    throw new WrongType(e2, "lookup-in-current-form-environment", 0, component$Mnname);
+                    result = Invoke.invoke.applyN(makeInvokeArgs(component, method$Mnname, coerced$Mnargs));
+                } catch (PermissionException exception) {
+                    result = Invoke.invoke.applyN(new Object[]{Form.getActiveForm(), "dispatchPermissionDeniedEvent", component, method$Mnname, exception});
                 }
+            } catch (ClassCastException e) {
+                throw new WrongType(e, "lookup-in-current-form-environment", 0, component$Mnname);
             }
-            result = apply2;
         } else {
             result = generateRuntimeTypeError(method$Mnname, arglist);
         }
@@ -3260,32 +3352,32 @@ public class runtime extends ModuleBody implements Runnable {
     }
 
     public static Object callComponentTypeMethod(Object possible$Mncomponent, Object component$Mntype, Object method$Mnname, Object arglist, Object typelist) {
-        Object coerced$Mnargs = coerceArgs(method$Mnname, arglist, lists.cdr.apply1(typelist));
+        Object[] coerced$Mnargs = coerceArgsToArray(method$Mnname, arglist, lists.cdr.apply1(typelist));
         Object component$Mnvalue = coerceToComponentOfType(possible$Mncomponent, component$Mntype);
         if (!(component$Mnvalue instanceof Component)) {
             return generateRuntimeTypeError(method$Mnname, LList.list1(getDisplayRepresentation(possible$Mncomponent)));
         }
         Object result;
-        if (isAllCoercible(coerced$Mnargs) != Boolean.FALSE) {
-            Procedure procedure = Scheme.apply;
-            Invoke invoke = Invoke.invoke;
-            Object[] objArr = new Object[2];
-            objArr[0] = component$Mnvalue;
-            Object[] objArr2 = new Object[2];
-            objArr2[0] = method$Mnname;
-            objArr2[1] = Quote.append$V(new Object[]{coerced$Mnargs, LList.Empty});
-            objArr[1] = Quote.consX$V(objArr2);
-            result = procedure.apply2(invoke, Quote.consX$V(objArr));
+        if (coerced$Mnargs != null) {
+            result = Invoke.invoke.applyN(makeInvokeArgs(component$Mnvalue, method$Mnname, coerced$Mnargs));
         } else {
             result = generateRuntimeTypeError(method$Mnname, arglist);
         }
         return sanitizeComponentData(result);
     }
 
+    private static Object[] makeInvokeArgs(Object target, Object method$Mnname, Object[] args) {
+        Object[] invokeArgs = new Object[(args.length + 2)];
+        invokeArgs[0] = target;
+        invokeArgs[1] = method$Mnname;
+        System.arraycopy(args, 0, invokeArgs, 2, args.length);
+        return invokeArgs;
+    }
+
     public static Object callYailPrimitive(Object prim, Object arglist, Object typelist, Object codeblocks$Mnname) {
-        Object coerced$Mnargs = coerceArgs(codeblocks$Mnname, arglist, typelist);
-        if (isAllCoercible(coerced$Mnargs) != Boolean.FALSE) {
-            return Scheme.apply.apply2(prim, coerced$Mnargs);
+        Object[] coerced$Mnargs = coerceArgsToArray(codeblocks$Mnname, arglist, typelist);
+        if (coerced$Mnargs != null) {
+            return applyCoerced(prim, coerced$Mnargs);
         }
         return generateRuntimeTypeError(codeblocks$Mnname, arglist);
     }
@@ -3351,13 +3443,20 @@ public class runtime extends ModuleBody implements Runnable {
     }
 
     public static Object callWithCoercedArgs(Object func, Object arglist, Object typelist, Object codeblocks$Mnname) {
-        Object coerced$Mnargs = coerceArgs(codeblocks$Mnname, arglist, typelist);
-        if (isAllCoercible(coerced$Mnargs) != Boolean.FALSE) {
-            return Scheme.apply.apply2(func, coerced$Mnargs);
+        Object[] coerced$Mnargs = coerceArgsToArray(codeblocks$Mnname, arglist, typelist);
+        if (coerced$Mnargs != null) {
+            return applyCoerced(func, coerced$Mnargs);
         }
         return generateRuntimeTypeError(codeblocks$Mnname, arglist);
     }
 
+    private static Object applyCoerced(Object func, Object[] args) {
+        if (func instanceof Procedure) {
+            return ((Procedure) func).applyN(args);
+        }
+        return Scheme.apply.apply2(func, LList.makeList(args, 0));
+    }
+
     public static Object $PcSetAndCoerceProperty$Ex(Object comp, Object prop$Mnname, Object property$Mnvalue, Object property$Mntype) {
         androidLog(Format.formatToString(0, "coercing for setting property ~A -- value ~A to type ~A", prop$Mnname, property$Mnvalue, property$Mntype));
         Object coerced$Mnarg = coerceArg(property$Mnvalue, property$Mntype);
@@ -3467,6 +3566,49 @@ public class runtime extends ModuleBody implements Runnable {
         }
     }
 
+    public static Object[] coerceArgsToArray(Object procedure$Mnname, Object arglist, Object typelist) {
+        Object[] coerced$Mnargs = null;
+        CoercionPlan plan = getCoercionPlan(typelist);
+        if (plan != null) {
+            coerced$Mnargs = plan.coerce(arglist);
+        }
+        if (coerced$Mnargs == null) {
+            Object coerced = coerceArgs(procedure$Mnname, arglist, typelist);
+            try {
+                coerced$Mnargs = ((LList) coerced).toArray();
+            } catch (ClassCastException e) {
+                throw new WrongType(e, "coerce-args", 0, coerced);
+            }
+        }
+        for (Object arg : coerced$Mnargs) {
+            if (arg == Lit2) {
+                return null;
+            }
+        }
+        return coerced$Mnargs;
+    }
+
+    private static CoercionPlan getCoercionPlan(Object typelist) {
+        if (!(typelist instanceof Pair)) {
+            return null;
+        }
+        synchronized (coercionPlans) {
+            CoercionPlan plan = (CoercionPlan) coercionPlans.get(typelist);
+            if (plan == null) {
+                try {
+                    plan = new CoercionPlan(((LList) typelist).toArray());
+                    if (coercionPlans.size() >= MAX_COERCION_PLANS) {
+                        coercionPlans.clear();
+                    }
+                    coercionPlans.put(typelist, plan);
+                } catch (ClassCastException e) {
+                    throw new WrongType(e, "coerce-args", 2, typelist);
+                }
+            }
+            return plan;
+        }
+    }
+
     public static Object coerceArg(Object arg, Object type) {
         arg = sanitizeAtomic(arg);
         if (IsEqual.apply(type, Lit4)) {
@@ -4442,6 +4584,9 @@ public class runtime extends ModuleBody implements Runnable {
     }
 
     public static int yailListLength(Object yail$Mnlist) {
+        if (yail$Mnlist instanceof YailList) {
+            return ((YailList) yail$Mnlist).size();
+        }
         Object yailListContents = yailListContents(yail$Mnlist);
         try {
             return lists.length((LList) yailListContents);
@@ -4451,12 +4596,22 @@ public class runtime extends ModuleBody implements Runnable {
     }
 
     public static Object yailListIndex(Object object, Object yail$Mnlist) {
-        Object i = Lit17;
+        if (yail$Mnlist instanceof YailList) {
+            YailList yailList = (YailList) yail$Mnlist;
+            int size = yailList.size();
+            for (int i = 0; i < size; i++) {
+                if (isYailEqual(object, yailList.getContent(i)) != Boolean.FALSE) {
+                    return IntNum.make(i + 1);
+                }
+            }
+            return Lit18;
+        }
+        Object i2 = Lit17;
         for (Object list = yailListContents(yail$Mnlist); !lists.isNull(list); list = lists.cdr.apply1(list)) {
             if (isYailEqual(object, lists.car.apply1(list)) != Boolean.FALSE) {
-                return i;
+                return i2;
             }
-            i = AddOp.$Pl.apply2(i, Lit17);
+            i2 = AddOp.$Pl.apply2(i2, Lit17);
         }
         return Lit18;
     }
@@ -4468,8 +4623,15 @@ public class runtime extends ModuleBody implements Runnable {
         if (Scheme.numGrt.apply2(index, Integer.valueOf(yailListLength(yail$Mnlist))) != Boolean.FALSE) {
             return signalRuntimeError(Format.formatToString(0, "Select list item: Attempt to get item number ~A of a list of length ~A: ~A", index, Integer.valueOf(yailListLength(yail$Mnlist)), getDisplayRepresentation(yail$Mnlist)), "Select list item: List index too large");
         }
-        Object yailListContents = yailListContents(yail$Mnlist);
         Object apply2 = AddOp.$Mn.apply2(index, Lit17);
+        if (yail$Mnlist instanceof YailList) {
+            try {
+                return ((YailList) yail$Mnlist).getContent(((Number) apply2).intValue());
+            } catch (ClassCastException e) {
+                throw new WrongType(e, "list-ref", 2, apply2);
+            }
+        }
+        Object yailListContents = yailListContents(yail$Mnlist);
         try {
             return lists.listRef(yailListContents, ((Number) apply2).intValue());
         } catch (ClassCastException e) {
@@ -4484,8 +4646,16 @@ public class runtime extends ModuleBody implements Runnable {
         if (Scheme.numGrt.apply2(index, Integer.valueOf(yailListLength(yail$Mnlist))) != Boolean.FALSE) {
             signalRuntimeError(Format.formatToString(0, "Replace list item: Attempt to replace item number ~A of a list of length ~A: ~A", index, Integer.valueOf(yailListLength(yail$Mnlist)), getDisplayRepresentation(yail$Mnlist)), "List index too large");
         }
-        Object yailListContents = yailListContents(yail$Mnlist);
         Object apply2 = AddOp.$Mn.apply2(index, Lit17);
+        if (yail$Mnlist instanceof YailList) {
+            try {
+                ((YailList) yail$Mnlist).setContent(((Number) apply2).intValue(), value);
+                return;
+            } catch (ClassCastException e3) {
+                throw new WrongType(e3, "list-tail", 2, apply2);
+            }
+        }
+        Object yailListContents = yailListContents(yail$Mnlist);
         try {
             Object listTail = lists.listTail(yailListContents, ((Number) apply2).intValue());
             try {
@@ -4513,6 +4683,14 @@ public class runtime extends ModuleBody implements Runnable {
             signalRuntimeError(Format.formatToString(0, "Remove list item: Attempt to remove item ~A of a list of length ~A: ~A", index2, Integer.valueOf(yailListLength(yail$Mnlist)), getDisplayRepresentation(yail$Mnlist)), "List index too large");
         }
         Object apply2 = AddOp.$Mn.apply2(index2, Lit17);
+        if (yail$Mnlist instanceof YailList) {
+            try {
+                ((YailList) yail$Mnlist).removeContent(((Number) apply2).intValue());
+                return;
+            } catch (ClassCastException e3) {
+                throw new WrongType(e3, "list-tail", 2, apply2);
+            }
+        }
         try {
             Object pair$Mnpointing$Mnto$Mndeletion = lists.listTail(yail$Mnlist, ((Number) apply2).intValue());
             try {
@@ -4536,6 +4714,15 @@ public class runtime extends ModuleBody implements Runnable {
         if (Scheme.numGrt.apply2(index2, Integer.valueOf(yailListLength(yail$Mnlist) + 1)) != Boolean.FALSE) {
             signalRuntimeError(Format.formatToString(0, "Insert list item: Attempt to insert item ~A into the list ~A.  The maximum valid item number is ~A.", index2, getDisplayRepresentation(yail$Mnlist), Integer.valueOf(yailListLength(yail$Mnlist) + 1)), "List index too large");
         }
+        if (yail$Mnlist instanceof YailList) {
+            Object apply22 = AddOp.$Mn.apply2(index2, Lit17);
+            try {
+                ((YailList) yail$Mnlist).insertContent(((Number) apply22).intValue(), item);
+                return;
+            } catch (ClassCastException e3) {
+                throw new WrongType(e3, "list-tail", 2, apply22);
+            }
+        }
         Object contents = yailListContents(yail$Mnlist);
         if (Scheme.numEqu.apply2(index2, Lit17) != Boolean.FALSE) {
             setYailListContents$Ex(yail$Mnlist, lists.cons(item, contents));
@@ -4555,6 +4742,10 @@ public class runtime extends ModuleBody implements Runnable {
     }
 
     public static void yailListAppend$Ex(Object yail$Mnlist$MnA, Object yail$Mnlist$MnB) {
+        if (yail$Mnlist$MnA instanceof YailList) {
+            ((YailList) yail$Mnlist$MnA).appendContents(yailListContents(yail$Mnlist$MnB));
+            return;
+        }
         Object yailListContents = yailListContents(yail$Mnlist$MnA);
         try {
             yailListContents = lists.listTail(yail$Mnlist$MnA, lists.length((LList) yailListContents));